@@ -1,5 +1,6 @@
 package com.rgs.recipeapi;
 
+import com.rgs.recipeapi.analytics.AuthorStatsService;
 import com.rgs.recipeapi.dto.RecipeData;
 import com.rgs.recipeapi.entity.Author;
 import com.rgs.recipeapi.entity.Ingredient;
@@ -23,15 +24,18 @@ public class DataLoader implements CommandLineRunner {
     private final RecipeRepository recipeRepository;
     private final IngredientRepository ingredientRepository;
     private final ObjectMapper objectMapper;
+    private final AuthorStatsService authorStatsService;
 
     public DataLoader(AuthorRepository authorRepository,
                       RecipeRepository recipeRepository,
                       IngredientRepository ingredientRepository,
-                      ObjectMapper objectMapper) {
+                      ObjectMapper objectMapper,
+                      AuthorStatsService authorStatsService) {
         this.authorRepository = authorRepository;
         this.recipeRepository = recipeRepository;
         this.ingredientRepository = ingredientRepository;
         this.objectMapper = objectMapper;
+        this.authorStatsService = authorStatsService;
     }
 
     @Override
@@ -55,6 +59,7 @@ public class DataLoader implements CommandLineRunner {
             recipe.setDescription(recipeData.getDescription());
             recipe.setInstructions(recipeData.getInstructions());
             recipe.setAuthor(authorMap.get(recipeData.getAuthor()));
+            recipe.setIngredientCount(recipeData.getIngredients().size());
             recipe = recipeRepository.save(recipe);
 
             for (RecipeData.IngredientData ingredientData : recipeData.getIngredients()) {
@@ -67,6 +72,9 @@ public class DataLoader implements CommandLineRunner {
             }
         }
 
+        // Seed rows bypass the controllers, so build the author counters from scratch
+        authorStatsService.reconcile();
+
         System.out.println("Loaded " + data.getRecipes().size() + " recipes from JSON.");
     }
 }
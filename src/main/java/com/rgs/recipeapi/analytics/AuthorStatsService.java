@@ -0,0 +1,163 @@
+package com.rgs.recipeapi.analytics;
+
+import com.rgs.recipeapi.entity.Author;
+import com.rgs.recipeapi.entity.AuthorStats;
+import com.rgs.recipeapi.entity.Ingredient;
+import com.rgs.recipeapi.entity.Recipe;
+import com.rgs.recipeapi.repository.AuthorRepository;
+import com.rgs.recipeapi.repository.AuthorStatsRepository;
+import com.rgs.recipeapi.shard.ShardTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Maintains the {@link AuthorStats} counters.
+ * Each write path applies a single increment UPDATE inside the caller's transaction; {@link #reconcile()} recomputes
+ * every row from the source tables, with one set-based UPDATE per shard, to repair drift from writes that bypass the
+ * controllers.
+ * Callers update their ingredient and recipe rows before calling in, so every write locks ingredient, recipe and
+ * author_stats rows in that order.
+ */
+@Component
+public class AuthorStatsService {
+
+    private final AuthorStatsRepository authorStatsRepository;
+    private final AuthorRepository authorRepository;
+    private final ShardTemplate shardTemplate;
+
+    public AuthorStatsService(AuthorStatsRepository authorStatsRepository,
+                              AuthorRepository authorRepository,
+                              ShardTemplate shardTemplate) {
+        this.authorStatsRepository = authorStatsRepository;
+        this.authorRepository = authorRepository;
+        this.shardTemplate = shardTemplate;
+    }
+
+    public Optional<AuthorStats> findByAuthorId(Long authorId) {
+        return authorStatsRepository.findById(authorId);
+    }
+
+    @Transactional
+    public void authorCreated(Author author) {
+        AuthorStats stats = new AuthorStats();
+        stats.setAuthorId(author.getId());
+        stats.setLastModified(Instant.now());
+        authorStatsRepository.save(stats);
+    }
+
+    @Transactional
+    public void recipeCreated(Recipe recipe) {
+        apply(authorIdOf(recipe), 1, 0);
+    }
+
+    @Transactional
+    public void recipeUpdated(Long previousAuthorId, Recipe recipe, long ingredientCount) {
+        recipeMoved(previousAuthorId, authorIdOf(recipe), ingredientCount);
+    }
+
+    /**
+     * Either author may be {@code null}: gaining an author only increments, losing one only decrements.
+     */
+    @Transactional
+    public void recipeMoved(Long previousAuthorId, Long authorId, long ingredientCount) {
+        if (Objects.equals(previousAuthorId, authorId)) {
+            apply(authorId, 0, 0);
+            return;
+        }
+        apply(previousAuthorId, -1, -ingredientCount);
+        apply(authorId, 1, ingredientCount);
+    }
+
+    /**
+     * Must run before the recipe is deleted, as the owning author is resolved by subquery on the recipe row, and after
+     * the recipe row is locked. A recipe can only be deleted once its ingredients are gone, so only the recipe count
+     * changes.
+     */
+    @Transactional
+    public void recipeDeleting(Long recipeId) {
+        authorStatsRepository.decrementForRecipe(recipeId, Instant.now());
+    }
+
+    @Transactional
+    public void recipesDeleting(Collection<Long> recipeIds) {
+        authorStatsRepository.decrementForRecipes(recipeIds, Instant.now());
+    }
+
+    /**
+     * For writes that change a recipe or its ingredients without loading the recipe, such as PATCH.
+     */
+    @Transactional
+    public void recipeTouched(Long recipeId) {
+        authorStatsRepository.touchForRecipe(recipeId, Instant.now());
+    }
+
+    @Transactional
+    public void ingredientCreated(Ingredient ingredient) {
+        apply(authorIdOf(ingredient.getRecipe()), 0, 1);
+    }
+
+    @Transactional
+    public void ingredientUpdated(Ingredient ingredient) {
+        apply(authorIdOf(ingredient.getRecipe()), 0, 0);
+    }
+
+    /**
+     * Runs after the ingredient is deleted; the owning author is resolved through the recipe, which is still there.
+     */
+    @Transactional
+    public void ingredientDeleted(Long recipeId) {
+        authorStatsRepository.decrementIngredientsForRecipe(recipeId, Instant.now());
+    }
+
+    @Transactional
+    public void authorDeleted(Long authorId) {
+        authorStatsRepository.bulkDeleteByAuthorId(authorId);
+    }
+
+    @Scheduled(fixedDelayString = "${recipe.author-stats.reconcile-interval-ms:600000}",
+            initialDelayString = "${recipe.author-stats.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        shardTemplate.forEachShard(this::reconcileShard);
+    }
+
+    // An author's recipes and ingredients share its shard, so each shard's counters are complete on their own.
+    // Authors, then counters, are locked first: writes that add a counter row hold the author, and an increment
+    // waiting on a counter row lands after the recount instead of being overwritten by it
+    private void reconcileShard() {
+        authorRepository.lockAll();
+        authorStatsRepository.lockAll();
+        authorStatsRepository.deleteOrphaned();
+        authorStatsRepository.insertMissing(Instant.now());
+        authorStatsRepository.recount();
+    }
+
+    private void apply(Long authorId, long recipes, long ingredients) {
+        if (authorId == null) {
+            return;
+        }
+        Instant now = Instant.now();
+        if (authorStatsRepository.increment(authorId, recipes, ingredients, now) == 0) {
+            // Concurrent first writes for an author without a row queue on the author, so only one inserts it
+            authorRepository.lockById(authorId);
+            if (authorStatsRepository.increment(authorId, recipes, ingredients, now) > 0) {
+                return;
+            }
+            AuthorStats stats = new AuthorStats();
+            stats.setAuthorId(authorId);
+            stats.setRecipeCount(Math.max(recipes, 0));
+            stats.setIngredientCount(Math.max(ingredients, 0));
+            stats.setLastModified(now);
+            authorStatsRepository.save(stats);
+        }
+    }
+
+    private static Long authorIdOf(Recipe recipe) {
+        return recipe == null || recipe.getAuthor() == null ? null : recipe.getAuthor().getId();
+    }
+}
@@ -0,0 +1,190 @@
+package com.rgs.recipeapi.analytics;
+
+import com.rgs.recipeapi.dto.IdTerm;
+import com.rgs.recipeapi.dto.Suggestion;
+import com.rgs.recipeapi.feed.EntityChange;
+import com.rgs.recipeapi.repository.IngredientRepository;
+import com.rgs.recipeapi.repository.RecipeRepository;
+import com.rgs.recipeapi.shard.ShardRouter;
+import com.rgs.recipeapi.shard.ShardTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Typeahead over recipe titles and ingredient names, ranked by how many rows carry each term.
+ * Both tries are built once the application is ready and kept current from committed change events; the last
+ * known term per row id is remembered so updates and deletes can take back the old term's count. Changes that
+ * commit while a rebuild is reading are applied again to the fresh tries.
+ */
+@Component
+public class AutocompleteService {
+
+    private static final Logger log = LoggerFactory.getLogger(AutocompleteService.class);
+
+    public enum Type {
+        RECIPE, INGREDIENT
+    }
+
+    private final RecipeRepository recipeRepository;
+    private final IngredientRepository ingredientRepository;
+    private final ShardTemplate shardTemplate;
+    private final ShardRouter shardRouter;
+    private final int topK;
+    private final Pageable batch;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final StripedLocks rows = new StripedLocks(64);
+    private final Terms recipes;
+    private final Terms ingredients;
+    private List<EntityChange> changedDuringRebuild;
+
+    public AutocompleteService(RecipeRepository recipeRepository,
+                               IngredientRepository ingredientRepository,
+                               ShardTemplate shardTemplate,
+                               ShardRouter shardRouter,
+                               @Value("${recipe.autocomplete.top-k:10}") int topK,
+                               @Value("${recipe.stats.batch-size:10000}") int batchSize) {
+        this.recipeRepository = recipeRepository;
+        this.ingredientRepository = ingredientRepository;
+        this.shardTemplate = shardTemplate;
+        this.shardRouter = shardRouter;
+        this.topK = topK;
+        this.batch = PageRequest.ofSize(batchSize);
+        this.recipes = new Terms(new PrefixTrie(topK), new HashMap<>());
+        this.ingredients = new Terms(new PrefixTrie(topK), new HashMap<>());
+    }
+
+    // Ahead of WarmUp, which runs last, so the index is built before the node reports ready
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Terms freshRecipes = load(recipeRepository::findTitlesAfter);
+        Terms freshIngredients = load(ingredientRepository::findNamesAfter);
+        List<EntityChange> changed;
+        lock.writeLock().lock();
+        try {
+            recipes.replaceWith(freshRecipes);
+            ingredients.replaceWith(freshIngredients);
+            changed = changedDuringRebuild;
+            changedDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // Re-reading the current term makes this a no-op for changes the pages already saw
+        changed.forEach(this::onChange);
+        log.info("Autocomplete built: {} recipe titles, {} ingredient names",
+                freshRecipes.trie.size(), freshIngredients.trie.size());
+    }
+
+    public List<Suggestion> complete(Type type, String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            return terms(type).trie.complete(prefix, Math.min(limit, topK));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(EntityChange change) {
+        if ("recipe".equals(change.entity())) {
+            apply(Type.RECIPE, change, change.id(), recipeRepository::findTitleById);
+        } else if ("ingredient".equals(change.entity())) {
+            apply(Type.INGREDIENT, change, change.parentId(), ingredientRepository::findNameById);
+        }
+    }
+
+    // Reading and applying under the row's stripe keeps two events for one row from applying in the opposite order
+    // to their reads, which would leave the older term in the trie
+    private void apply(Type type, EntityChange change, Long recipeId, Function<Long, String> currentTerm) {
+        rows.run(change.id(), () -> {
+            String current = change.action() == EntityChange.Action.DELETED ? null
+                    : shardTemplate.onShard(shardRouter.recipeShard(recipeId), () -> currentTerm.apply(change.id()));
+            applyTerm(type, change, current);
+        });
+    }
+
+    private void applyTerm(Type type, EntityChange change, String current) {
+        lock.writeLock().lock();
+        try {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(change);
+            }
+            Terms terms = terms(type);
+            String previous = current == null ? terms.byId.remove(change.id()) : terms.byId.put(change.id(), current);
+            if (Objects.equals(previous, current)) {
+                return;
+            }
+            if (previous != null) {
+                terms.trie.adjust(previous, -1);
+            }
+            if (current != null) {
+                terms.trie.adjust(current, 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Terms load(BiFunction<Long, Pageable, List<IdTerm>> page) {
+        Terms terms = new Terms(new PrefixTrie(topK), new HashMap<>());
+        shardTemplate.forEachShard(() -> {
+            long lastId = 0;
+            List<IdTerm> rows;
+            do {
+                rows = page.apply(lastId, batch);
+                for (IdTerm row : rows) {
+                    if (row.term() != null) {
+                        terms.byId.put(row.id(), row.term());
+                        terms.trie.adjust(row.term(), 1);
+                    }
+                    lastId = row.id();
+                }
+            } while (rows.size() == batch.getPageSize());
+        });
+        return terms;
+    }
+
+    private Terms terms(Type type) {
+        return type == Type.RECIPE ? recipes : ingredients;
+    }
+
+    private static final class Terms {
+        private PrefixTrie trie;
+        private Map<Long, String> byId;
+
+        Terms(PrefixTrie trie, Map<Long, String> byId) {
+            this.trie = trie;
+            this.byId = byId;
+        }
+
+        void replaceWith(Terms other) {
+            this.trie = other.trie;
+            this.byId = other.byId;
+        }
+    }
+}
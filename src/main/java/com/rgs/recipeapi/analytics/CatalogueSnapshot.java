@@ -0,0 +1,109 @@
+package com.rgs.recipeapi.analytics;
+
+import com.rgs.recipeapi.dto.AuthorCount;
+import com.rgs.recipeapi.dto.CatalogueSummary;
+import com.rgs.recipeapi.dto.CountEntry;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Read-only columnar view of recipes and ingredients.
+ * Strings are dictionary-encoded, so every group-by is a single pass over an int column into a counts array.
+ */
+public final class CatalogueSnapshot {
+
+    private final int[] recipeAuthor;
+    private final int recipeCount;
+    private final Object[] authorIds;
+    private final String[] authorNames;
+    private final int authorCount;
+
+    private final int[] ingredientName;
+    private final int[] ingredientUnit;
+    private final int ingredientCount;
+    private final Object[] ingredientNames;
+    private final int ingredientNameCount;
+    private final Object[] units;
+    private final int unitCount;
+
+    private final Instant builtAt;
+
+    CatalogueSnapshot(int[] recipeAuthor, int recipeCount,
+                      Object[] authorIds, String[] authorNames, int authorCount,
+                      int[] ingredientName, int[] ingredientUnit, int ingredientCount,
+                      Object[] ingredientNames, int ingredientNameCount,
+                      Object[] units, int unitCount,
+                      Instant builtAt) {
+        this.recipeAuthor = recipeAuthor;
+        this.recipeCount = recipeCount;
+        this.authorIds = authorIds;
+        this.authorNames = authorNames;
+        this.authorCount = authorCount;
+        this.ingredientName = ingredientName;
+        this.ingredientUnit = ingredientUnit;
+        this.ingredientCount = ingredientCount;
+        this.ingredientNames = ingredientNames;
+        this.ingredientNameCount = ingredientNameCount;
+        this.units = units;
+        this.unitCount = unitCount;
+        this.builtAt = builtAt;
+    }
+
+    public CatalogueSummary summary() {
+        return new CatalogueSummary(recipeCount, ingredientCount, authorCount, ingredientNameCount, builtAt);
+    }
+
+    public List<AuthorCount> recipesPerAuthor() {
+        long[] counts = new long[authorCount];
+        for (int i = 0; i < recipeCount; i++) {
+            int author = recipeAuthor[i];
+            if (author >= 0) {
+                counts[author]++;
+            }
+        }
+        List<AuthorCount> result = new ArrayList<>(authorCount);
+        for (int code : sortedByCountDesc(counts, authorCount)) {
+            result.add(new AuthorCount((Long) authorIds[code], authorNames[code], counts[code]));
+        }
+        return result;
+    }
+
+    public List<CountEntry> topIngredients(int limit) {
+        long[] counts = countCodes(ingredientName, ingredientNameCount);
+        return entries(counts, ingredientNames, Math.max(0, Math.min(limit, ingredientNameCount)));
+    }
+
+    public List<CountEntry> unitDistribution() {
+        long[] counts = countCodes(ingredientUnit, unitCount);
+        return entries(counts, units, unitCount);
+    }
+
+    private long[] countCodes(int[] column, int distinct) {
+        long[] counts = new long[distinct];
+        for (int i = 0; i < ingredientCount; i++) {
+            counts[column[i]]++;
+        }
+        return counts;
+    }
+
+    private static List<CountEntry> entries(long[] counts, Object[] dictionary, int limit) {
+        int[] codes = sortedByCountDesc(counts, counts.length);
+        List<CountEntry> result = new ArrayList<>(limit);
+        for (int i = 0; i < limit; i++) {
+            result.add(new CountEntry((String) dictionary[codes[i]], counts[codes[i]]));
+        }
+        return result;
+    }
+
+    private static int[] sortedByCountDesc(long[] counts, int size) {
+        return IntStream.range(0, size)
+                .boxed()
+                .sorted(Comparator.comparingLong((Integer code) -> counts[code]).reversed())
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+}
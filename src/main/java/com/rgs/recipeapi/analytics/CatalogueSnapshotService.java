@@ -0,0 +1,95 @@
+package com.rgs.recipeapi.analytics;
+
+import com.rgs.recipeapi.dto.IngredientStatsRow;
+import com.rgs.recipeapi.dto.RecipeStatsRow;
+import com.rgs.recipeapi.repository.IngredientRepository;
+import com.rgs.recipeapi.repository.RecipeRepository;
+import com.rgs.recipeapi.shard.ShardTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Keeps a {@link CatalogueSnapshot} close to the database without rescanning it.
+ * A refresh only reads rows with ids above the last ones seen; deletes show up as a row-count mismatch and trigger
+ * a full rebuild, and edits to existing rows are picked up by the periodic full rebuild.
+ */
+@Component
+public class CatalogueSnapshotService {
+
+    private final RecipeRepository recipeRepository;
+    private final IngredientRepository ingredientRepository;
+    private final ShardTemplate shardTemplate;
+    private final Pageable batch;
+    private final int fullRebuildEvery;
+
+    private volatile CatalogueSnapshot snapshot;
+    private SnapshotBuilder builder;
+    private int refreshesSinceRebuild;
+
+    public CatalogueSnapshotService(RecipeRepository recipeRepository,
+                                    IngredientRepository ingredientRepository,
+                                    ShardTemplate shardTemplate,
+                                    @Value("${recipe.stats.batch-size:10000}") int batchSize,
+                                    @Value("${recipe.stats.full-rebuild-every:20}") int fullRebuildEvery) {
+        this.recipeRepository = recipeRepository;
+        this.ingredientRepository = ingredientRepository;
+        this.shardTemplate = shardTemplate;
+        this.batch = PageRequest.ofSize(batchSize);
+        this.fullRebuildEvery = fullRebuildEvery;
+    }
+
+    public CatalogueSnapshot current() {
+        CatalogueSnapshot current = snapshot;
+        return current != null ? current : refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${recipe.stats.refresh-interval-ms:30000}",
+            initialDelayString = "${recipe.stats.refresh-interval-ms:30000}")
+    public synchronized CatalogueSnapshot refresh() {
+        if (builder == null || ++refreshesSinceRebuild >= fullRebuildEvery) {
+            return rebuild();
+        }
+        append(builder);
+        if (builder.recipeCount() != shardTemplate.sum(recipeRepository::count)
+                || builder.ingredientCount() != shardTemplate.sum(ingredientRepository::count)) {
+            return rebuild();
+        }
+        snapshot = builder.build();
+        return snapshot;
+    }
+
+    public synchronized CatalogueSnapshot rebuild() {
+        SnapshotBuilder fresh = new SnapshotBuilder(shardTemplate.count());
+        append(fresh);
+        builder = fresh;
+        refreshesSinceRebuild = 0;
+        snapshot = fresh.build();
+        return snapshot;
+    }
+
+    private void append(SnapshotBuilder target) {
+        for (int shard = 0; shard < shardTemplate.count(); shard++) {
+            int current = shard;
+            shardTemplate.runOnShard(shard, () -> append(target, current));
+        }
+    }
+
+    private void append(SnapshotBuilder target, int shard) {
+        List<RecipeStatsRow> recipes;
+        do {
+            recipes = recipeRepository.findStatsRowsAfter(target.lastRecipeId(shard), batch);
+            target.appendRecipes(shard, recipes);
+        } while (recipes.size() == batch.getPageSize());
+
+        List<IngredientStatsRow> ingredients;
+        do {
+            ingredients = ingredientRepository.findStatsRowsAfter(target.lastIngredientId(shard), batch);
+            target.appendIngredients(shard, ingredients);
+        } while (ingredients.size() == batch.getPageSize());
+    }
+}
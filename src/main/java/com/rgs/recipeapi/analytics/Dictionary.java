@@ -0,0 +1,37 @@
+package com.rgs.recipeapi.analytics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Append-only dictionary encoding values to dense int codes.
+ * Codes are never reassigned, so snapshots holding an older values array stay valid while the builder grows.
+ */
+final class Dictionary<K> {
+
+    private final Map<K, Integer> codes = new HashMap<>();
+    private Object[] values = new Object[64];
+    private int size;
+
+    int encode(K value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size] = value;
+        codes.put(value, size);
+        return size++;
+    }
+
+    Object[] values() {
+        return values;
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,204 @@
+package com.rgs.recipeapi.analytics;
+
+import com.rgs.recipeapi.dto.SimilarRecipe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * MinHash signatures of recipe ingredient sets, bucketed by LSH banding.
+ * Two recipes land in a shared bucket with high probability once their Jaccard similarity passes roughly
+ * {@code (1 / bands) ^ (1 / rows)}, so a query only scores its own buckets instead of the whole catalogue.
+ * At most {@code maxCandidatesPerBand} members of each bucket are scored, which bounds a query on a very popular
+ * ingredient set to {@code bands * maxCandidatesPerBand} comparisons.
+ * Not thread-safe; {@link SimilarityService} guards it.
+ */
+public final class MinHashIndex {
+
+    // Rough per-entry costs of the backing maps, used for the memory budget
+    private static final int SIGNATURE_ENTRY_OVERHEAD = 64;
+    private static final int BUCKET_OVERHEAD = 80;
+
+    private final int hashes;
+    private final int bands;
+    private final int rows;
+    private final int maxCandidatesPerBand;
+    private final long[] seeds;
+    private final Map<Long, int[]> signatures = new HashMap<>();
+    private final Map<Long, Bucket> buckets = new HashMap<>();
+    private long memberships;
+
+    public MinHashIndex(int hashes, int bands) {
+        this(hashes, bands, Integer.MAX_VALUE);
+    }
+
+    public MinHashIndex(int hashes, int bands, int maxCandidatesPerBand) {
+        if (hashes <= 0 || bands <= 0 || hashes % bands != 0) {
+            throw new IllegalArgumentException("hashes must be a positive multiple of bands");
+        }
+        if (maxCandidatesPerBand <= 0) {
+            throw new IllegalArgumentException("maxCandidatesPerBand must be positive");
+        }
+        this.hashes = hashes;
+        this.bands = bands;
+        this.rows = hashes / bands;
+        this.maxCandidatesPerBand = maxCandidatesPerBand;
+        this.seeds = new SplittableRandom(0x5EEDL).longs(hashes).toArray();
+    }
+
+    public void put(Long recipeId, Collection<String> ingredientNames) {
+        remove(recipeId);
+        if (ingredientNames.isEmpty()) {
+            return;
+        }
+        int[] signature = signature(ingredientNames);
+        signatures.put(recipeId, signature);
+        for (int band = 0; band < bands; band++) {
+            buckets.computeIfAbsent(bandKey(signature, band), key -> new Bucket()).add(recipeId);
+            memberships++;
+        }
+    }
+
+    public void remove(Long recipeId) {
+        int[] signature = signatures.remove(recipeId);
+        if (signature == null) {
+            return;
+        }
+        for (int band = 0; band < bands; band++) {
+            long key = bandKey(signature, band);
+            Bucket bucket = buckets.get(key);
+            if (bucket != null && bucket.remove(recipeId)) {
+                memberships--;
+                if (bucket.size == 0) {
+                    buckets.remove(key);
+                }
+            }
+        }
+    }
+
+    public boolean contains(Long recipeId) {
+        return signatures.containsKey(recipeId);
+    }
+
+    public List<SimilarRecipe> similar(Long recipeId, int k) {
+        int[] signature = signatures.get(recipeId);
+        if (signature == null || k <= 0) {
+            return List.of();
+        }
+        Set<Long> candidates = new HashSet<>();
+        for (int band = 0; band < bands; band++) {
+            Bucket bucket = buckets.get(bandKey(signature, band));
+            if (bucket != null) {
+                for (int i = 0, n = Math.min(bucket.size, maxCandidatesPerBand); i < n; i++) {
+                    candidates.add(bucket.members[i]);
+                }
+            }
+        }
+        candidates.remove(recipeId);
+
+        List<SimilarRecipe> scored = new ArrayList<>(candidates.size());
+        for (Long candidate : candidates) {
+            scored.add(new SimilarRecipe(candidate, estimateJaccard(signature, signatures.get(candidate))));
+        }
+        scored.sort(Comparator.comparingDouble(SimilarRecipe::similarity).reversed()
+                .thenComparing(SimilarRecipe::id));
+        return scored.size() > k ? new ArrayList<>(scored.subList(0, k)) : scored;
+    }
+
+    public int size() {
+        return signatures.size();
+    }
+
+    public int bucketCount() {
+        return buckets.size();
+    }
+
+    public long estimatedBytes() {
+        return signatures.size() * (long) (hashes * Integer.BYTES + SIGNATURE_ENTRY_OVERHEAD)
+                + buckets.size() * (long) BUCKET_OVERHEAD
+                + memberships * Long.BYTES;
+    }
+
+    /**
+     * Bytes one more recipe is expected to add, assuming each of its bands opens a new bucket.
+     */
+    public long estimatedBytesPerRecipe() {
+        return hashes * Integer.BYTES + SIGNATURE_ENTRY_OVERHEAD + bands * (long) (BUCKET_OVERHEAD + Long.BYTES);
+    }
+
+    private int[] signature(Collection<String> ingredientNames) {
+        int[] signature = new int[hashes];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (String name : ingredientNames) {
+            long element = name == null ? 0 : name.trim().toLowerCase(Locale.ROOT).hashCode();
+            for (int i = 0; i < hashes; i++) {
+                int h = (int) (mix(element * 0x9E3779B97F4A7C15L + seeds[i]) >>> 33);
+                if (h < signature[i]) {
+                    signature[i] = h;
+                }
+            }
+        }
+        return signature;
+    }
+
+    private long bandKey(int[] signature, int band) {
+        long key = mix(band + 1L);
+        for (int row = band * rows; row < (band + 1) * rows; row++) {
+            key = mix(key ^ signature[row]);
+        }
+        return key;
+    }
+
+    private static double estimateJaccard(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / a.length;
+    }
+
+    /**
+     * Recipe ids sharing one band key, in an array that doubles when full so building a popular bucket stays
+     * linear. Removal moves the last member into the gap, so order is not kept.
+     */
+    private static final class Bucket {
+
+        private long[] members = new long[2];
+        private int size;
+
+        void add(long recipeId) {
+            if (size == members.length) {
+                members = Arrays.copyOf(members, size * 2);
+            }
+            members[size++] = recipeId;
+        }
+
+        boolean remove(long recipeId) {
+            for (int i = 0; i < size; i++) {
+                if (members[i] == recipeId) {
+                    members[i] = members[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,199 @@
+package com.rgs.recipeapi.analytics;
+
+import com.rgs.recipeapi.dto.Suggestion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Radix trie of terms, matched case-insensitively, where every node caches the top-k terms beneath it by count.
+ * A lookup is a walk down the prefix and returns the cached array, so its cost does not depend on how many terms
+ * share the prefix. Updates recompute the cached lists along the changed path only.
+ * Not thread-safe; {@link AutocompleteService} guards it.
+ */
+final class PrefixTrie {
+
+    private static final Suggestion[] NONE = new Suggestion[0];
+    private static final Comparator<Suggestion> RANK = Comparator.comparingLong(Suggestion::count).reversed()
+            .thenComparing(Suggestion::text, String.CASE_INSENSITIVE_ORDER);
+
+    private final int k;
+    private final Node root = new Node("");
+    private int terms;
+
+    PrefixTrie(int k) {
+        this.k = k;
+    }
+
+    /**
+     * Adds {@code delta} to the count of {@code term}; the term is dropped once its count reaches zero.
+     */
+    void adjust(String term, long delta) {
+        String key = normalize(term);
+        if (key.isEmpty() || delta == 0) {
+            return;
+        }
+        List<Node> path = new ArrayList<>();
+        Node node = delta > 0 ? insertPath(key, path) : findPath(key, path);
+        if (node == null || (delta < 0 && node.term == null)) {
+            return;
+        }
+        if (node.term == null) {
+            node.term = term.trim();
+            terms++;
+        }
+        node.count += delta;
+        if (node.count <= 0) {
+            node.term = null;
+            node.count = 0;
+            terms--;
+        }
+
+        for (int i = path.size() - 1; i > 0; i--) {
+            compact(path.get(i - 1), path.get(i));
+        }
+        for (int i = path.size() - 1; i >= 0; i--) {
+            recompute(path.get(i));
+        }
+    }
+
+    List<Suggestion> complete(String prefix, int limit) {
+        Node node = findPrefix(normalize(prefix));
+        if (node == null) {
+            return List.of();
+        }
+        Suggestion[] top = node.top;
+        return Arrays.asList(top).subList(0, Math.max(0, Math.min(limit, top.length)));
+    }
+
+    int size() {
+        return terms;
+    }
+
+    private Node insertPath(String key, List<Node> path) {
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null) {
+                child = new Node(key.substring(i));
+                node.children.put(key.charAt(i), child);
+                path.add(child);
+                return child;
+            }
+            int common = commonPrefix(child.edge, key, i);
+            if (common < child.edge.length()) {
+                Node split = new Node(child.edge.substring(0, common));
+                child.edge = child.edge.substring(common);
+                split.children.put(child.edge.charAt(0), child);
+                split.top = child.top;
+                node.children.put(split.edge.charAt(0), split);
+                child = split;
+            }
+            i += common;
+            node = child;
+            path.add(node);
+        }
+        return node;
+    }
+
+    private Node findPath(String key, List<Node> path) {
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null || !key.startsWith(child.edge, i)) {
+                return null;
+            }
+            i += child.edge.length();
+            node = child;
+            path.add(node);
+        }
+        return node;
+    }
+
+    private Node findPrefix(String prefix) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            Node child = node.children.get(prefix.charAt(i));
+            if (child == null) {
+                return null;
+            }
+            int common = commonPrefix(child.edge, prefix, i);
+            if (i + common == prefix.length()) {
+                return child;
+            }
+            if (common < child.edge.length()) {
+                return null;
+            }
+            i += common;
+            node = child;
+        }
+        return node;
+    }
+
+    /**
+     * Removes {@code node} if it is an empty leaf, or folds its only child into it, keeping the trie compressed.
+     */
+    private void compact(Node parent, Node node) {
+        if (node.term != null) {
+            return;
+        }
+        if (node.children.isEmpty()) {
+            parent.children.remove(node.edge.charAt(0));
+        } else if (node.children.size() == 1) {
+            Node child = node.children.values().iterator().next();
+            node.edge = node.edge + child.edge;
+            node.children = child.children;
+            node.term = child.term;
+            node.count = child.count;
+            node.top = child.top;
+        }
+    }
+
+    private void recompute(Node node) {
+        List<Suggestion> candidates = new ArrayList<>();
+        if (node.term != null) {
+            candidates.add(new Suggestion(node.term, node.count));
+        }
+        for (Node child : node.children.values()) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        candidates.sort(RANK);
+        node.top = candidates.isEmpty() ? NONE
+                : candidates.subList(0, Math.min(k, candidates.size())).toArray(NONE);
+    }
+
+    private static int commonPrefix(String edge, String key, int offset) {
+        int max = Math.min(edge.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && edge.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static String normalize(String term) {
+        return term == null ? "" : term.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Node {
+        String edge;
+        Map<Character, Node> children = new HashMap<>(4);
+        String term;
+        long count;
+        Suggestion[] top = NONE;
+
+        Node(String edge) {
+            this.edge = edge;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.rgs.recipeapi.analytics;
+
+import com.rgs.recipeapi.dto.IngredientNameRow;
+import com.rgs.recipeapi.dto.SimilarRecipe;
+import com.rgs.recipeapi.dto.SimilarityIndexStats;
+import com.rgs.recipeapi.feed.EntityChange;
+import com.rgs.recipeapi.repository.IngredientRepository;
+import com.rgs.recipeapi.shard.ShardRouter;
+import com.rgs.recipeapi.shard.ShardTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Serves similar-recipe lookups from a {@link MinHashIndex} built once the application is ready.
+ * Committed ingredient changes re-sign the owning recipe; recipes changed while a rebuild is reading are re-signed
+ * again once the fresh index is in place. Recipes that would push the index past
+ * {@code recipe.similarity.max-memory-mb} are left out and logged.
+ */
+@Component
+public class SimilarityService {
+
+    private static final Logger log = LoggerFactory.getLogger(SimilarityService.class);
+
+    private final IngredientRepository ingredientRepository;
+    private final ShardTemplate shardTemplate;
+    private final ShardRouter shardRouter;
+    private final int hashes;
+    private final int bands;
+    private final int maxCandidatesPerBand;
+    private final long budgetBytes;
+    private final Pageable batch;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final StripedLocks recipes = new StripedLocks(64);
+    private MinHashIndex index;
+    private Set<Long> changedDuringRebuild;
+    private boolean budgetWarned;
+
+    public SimilarityService(IngredientRepository ingredientRepository,
+                             ShardTemplate shardTemplate,
+                             ShardRouter shardRouter,
+                             @Value("${recipe.similarity.hashes:64}") int hashes,
+                             @Value("${recipe.similarity.bands:16}") int bands,
+                             @Value("${recipe.similarity.max-candidates-per-band:500}") int maxCandidatesPerBand,
+                             @Value("${recipe.similarity.max-memory-mb:256}") long maxMemoryMb,
+                             @Value("${recipe.stats.batch-size:10000}") int batchSize) {
+        this.ingredientRepository = ingredientRepository;
+        this.shardTemplate = shardTemplate;
+        this.shardRouter = shardRouter;
+        this.hashes = hashes;
+        this.bands = bands;
+        this.maxCandidatesPerBand = maxCandidatesPerBand;
+        this.budgetBytes = maxMemoryMb * 1024 * 1024;
+        this.batch = PageRequest.ofSize(batchSize);
+        this.index = new MinHashIndex(hashes, bands, maxCandidatesPerBand);
+    }
+
+    // Ahead of WarmUp, which runs last, so the index is built before the node reports ready
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Map<Long, List<String>> ingredientsByRecipe = new HashMap<>();
+        shardTemplate.forEachShard(() -> {
+            long lastId = 0;
+            List<IngredientNameRow> rows;
+            do {
+                rows = ingredientRepository.findNameRowsAfter(lastId, batch);
+                for (IngredientNameRow row : rows) {
+                    ingredientsByRecipe.computeIfAbsent(row.recipeId(), id -> new ArrayList<>()).add(row.name());
+                    lastId = row.id();
+                }
+            } while (rows.size() == batch.getPageSize());
+        });
+
+        MinHashIndex fresh = new MinHashIndex(hashes, bands, maxCandidatesPerBand);
+        ingredientsByRecipe.forEach((recipeId, names) -> {
+            if (fits(fresh)) {
+                fresh.put(recipeId, names);
+            }
+        });
+        Set<Long> changed;
+        lock.writeLock().lock();
+        try {
+            index = fresh;
+            changed = changedDuringRebuild;
+            changedDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // The pages may have been read before these changes committed
+        changed.forEach(this::reindex);
+        log.info("Similarity index built: {} recipes, {} buckets, ~{} KB",
+                fresh.size(), fresh.bucketCount(), fresh.estimatedBytes() / 1024);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(EntityChange change) {
+        if ("ingredient".equals(change.entity()) && change.parentId() != null) {
+            reindex(change.parentId());
+        } else if ("recipe".equals(change.entity()) && change.action() == EntityChange.Action.DELETED) {
+            recipes.run(change.id(), () -> remove(change.id()));
+        }
+    }
+
+    /**
+     * Re-signs the recipe from its current ingredients. The read and the update happen under the recipe's stripe, so
+     * a slower reindex cannot put back an ingredient set older than the one already indexed.
+     */
+    public void reindex(Long recipeId) {
+        recipes.run(recipeId, () -> {
+            List<String> names = shardTemplate.onShard(shardRouter.recipeShard(recipeId),
+                    () -> ingredientRepository.findNamesByRecipeId(recipeId));
+            put(recipeId, names);
+        });
+    }
+
+    private void put(Long recipeId, List<String> names) {
+        lock.writeLock().lock();
+        try {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(recipeId);
+            }
+            if (index.contains(recipeId) || fits(index)) {
+                index.put(recipeId, names);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(Long recipeId) {
+        lock.writeLock().lock();
+        try {
+            index.remove(recipeId);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(recipeId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(Long recipeId) {
+        lock.readLock().lock();
+        try {
+            return index.contains(recipeId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<SimilarRecipe> similar(Long recipeId, int k) {
+        lock.readLock().lock();
+        try {
+            return index.similar(recipeId, k);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public SimilarityIndexStats stats() {
+        lock.readLock().lock();
+        try {
+            return new SimilarityIndexStats(index.size(), index.bucketCount(), index.estimatedBytes(), budgetBytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean fits(MinHashIndex target) {
+        if (target.estimatedBytes() + target.estimatedBytesPerRecipe() <= budgetBytes) {
+            return true;
+        }
+        if (!budgetWarned) {
+            budgetWarned = true;
+            log.warn("Similarity index reached its {} MB budget at {} recipes; further recipes are not indexed",
+                    budgetBytes / (1024 * 1024), target.size());
+        }
+        return false;
+    }
+}
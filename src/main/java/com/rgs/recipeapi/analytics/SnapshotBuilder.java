@@ -0,0 +1,96 @@
+package com.rgs.recipeapi.analytics;
+
+import com.rgs.recipeapi.dto.IngredientStatsRow;
+import com.rgs.recipeapi.dto.RecipeStatsRow;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Growable column store behind {@link CatalogueSnapshot}.
+ * Rows are only ever appended, so a published snapshot can share the arrays and simply stop at its own row count.
+ * The last id read is tracked per shard, since each shard allocates ids from its own range.
+ */
+final class SnapshotBuilder {
+
+    private static final int NO_AUTHOR = -1;
+
+    private final Dictionary<Long> authors = new Dictionary<>();
+    private final Dictionary<String> ingredientNames = new Dictionary<>();
+    private final Dictionary<String> units = new Dictionary<>();
+    private String[] authorNames = new String[64];
+
+    private int[] recipeAuthor = new int[1024];
+    private int recipeCount;
+    private final long[] lastRecipeId;
+
+    private int[] ingredientName = new int[1024];
+    private int[] ingredientUnit = new int[1024];
+    private int ingredientCount;
+    private final long[] lastIngredientId;
+
+    SnapshotBuilder(int shards) {
+        this.lastRecipeId = new long[shards];
+        this.lastIngredientId = new long[shards];
+    }
+
+    void appendRecipes(int shard, List<RecipeStatsRow> rows) {
+        for (RecipeStatsRow row : rows) {
+            if (recipeCount == recipeAuthor.length) {
+                recipeAuthor = Arrays.copyOf(recipeAuthor, recipeCount * 2);
+            }
+            recipeAuthor[recipeCount++] = row.authorId() == null ? NO_AUTHOR : encodeAuthor(row);
+            lastRecipeId[shard] = row.id();
+        }
+    }
+
+    void appendIngredients(int shard, List<IngredientStatsRow> rows) {
+        for (IngredientStatsRow row : rows) {
+            if (ingredientCount == ingredientName.length) {
+                int capacity = ingredientCount * 2;
+                ingredientName = Arrays.copyOf(ingredientName, capacity);
+                ingredientUnit = Arrays.copyOf(ingredientUnit, capacity);
+            }
+            ingredientName[ingredientCount] = ingredientNames.encode(row.name());
+            ingredientUnit[ingredientCount] = units.encode(row.unit());
+            ingredientCount++;
+            lastIngredientId[shard] = row.id();
+        }
+    }
+
+    private int encodeAuthor(RecipeStatsRow row) {
+        int code = authors.encode(row.authorId());
+        if (code == authorNames.length) {
+            authorNames = Arrays.copyOf(authorNames, code * 2);
+        }
+        authorNames[code] = row.authorName();
+        return code;
+    }
+
+    long lastRecipeId(int shard) {
+        return lastRecipeId[shard];
+    }
+
+    long lastIngredientId(int shard) {
+        return lastIngredientId[shard];
+    }
+
+    int recipeCount() {
+        return recipeCount;
+    }
+
+    int ingredientCount() {
+        return ingredientCount;
+    }
+
+    CatalogueSnapshot build() {
+        return new CatalogueSnapshot(
+                recipeAuthor, recipeCount,
+                authors.values(), authorNames, authors.size(),
+                ingredientName, ingredientUnit, ingredientCount,
+                ingredientNames.values(), ingredientNames.size(),
+                units.values(), units.size(),
+                Instant.now());
+    }
+}
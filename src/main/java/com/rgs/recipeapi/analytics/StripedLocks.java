@@ -0,0 +1,30 @@
+package com.rgs.recipeapi.analytics;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks picked by row id, so work on one row can be serialized without keeping a lock per row.
+ * Rows that share a stripe also wait for each other, which only costs throughput.
+ */
+final class StripedLocks {
+
+    private final Lock[] stripes;
+
+    StripedLocks(int count) {
+        stripes = new Lock[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    void run(Long id, Runnable work) {
+        Lock stripe = stripes[Math.floorMod(Long.hashCode(id), stripes.length)];
+        stripe.lock();
+        try {
+            work.run();
+        } finally {
+            stripe.unlock();
+        }
+    }
+}
@@ -1,59 +1,215 @@
 package com.rgs.recipeapi.controller;
 
+import com.rgs.recipeapi.analytics.AuthorStatsService;
+import com.rgs.recipeapi.dto.AuthorPatch;
+import com.rgs.recipeapi.dto.ChangeSet;
+import com.rgs.recipeapi.dto.KeysetPage;
+import com.rgs.recipeapi.dto.RecipeSummary;
 import com.rgs.recipeapi.entity.Author;
+import com.rgs.recipeapi.entity.AuthorStats;
+import com.rgs.recipeapi.feed.DeltaSync;
+import com.rgs.recipeapi.feed.EntityChange;
 import com.rgs.recipeapi.repository.AuthorRepository;
+import com.rgs.recipeapi.repository.EntityPatcher;
+import com.rgs.recipeapi.repository.FieldProjector;
+import com.rgs.recipeapi.repository.RecipeRepository;
+import com.rgs.recipeapi.shard.ShardRouter;
+import com.rgs.recipeapi.shard.ShardTemplate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/authors")
 public class AuthorController {
 
+    private static final Map<String, String> FIELDS = Map.of(
+            "id", "id",
+            "name", "name",
+            "version", "version",
+            "updatedAt", "updatedAt");
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final AuthorRepository authorRepository;
+    private final RecipeRepository recipeRepository;
+    private final AuthorStatsService authorStatsService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DeltaSync deltaSync;
+    private final EntityPatcher entityPatcher;
+    private final FieldProjector fieldProjector;
+    private final ShardTemplate shardTemplate;
+    private final ShardRouter shardRouter;
 
-    public AuthorController(AuthorRepository authorRepository) {
+    public AuthorController(AuthorRepository authorRepository,
+                            RecipeRepository recipeRepository,
+                            AuthorStatsService authorStatsService,
+                            ApplicationEventPublisher eventPublisher,
+                            DeltaSync deltaSync,
+                            EntityPatcher entityPatcher,
+                            FieldProjector fieldProjector,
+                            ShardTemplate shardTemplate,
+                            ShardRouter shardRouter) {
         this.authorRepository = authorRepository;
+        this.recipeRepository = recipeRepository;
+        this.authorStatsService = authorStatsService;
+        this.eventPublisher = eventPublisher;
+        this.deltaSync = deltaSync;
+        this.entityPatcher = entityPatcher;
+        this.fieldProjector = fieldProjector;
+        this.shardTemplate = shardTemplate;
+        this.shardRouter = shardRouter;
     }
 
-    @GetMapping
+    @GetMapping(params = {"!fields", "!modifiedSince"})
     public List<Author> getAllAuthors() {
-        return authorRepository.findAll();
+        List<Author> authors = shardTemplate.gather(authorRepository::findAll);
+        authors.sort(Comparator.comparing(Author::getId));
+        return authors;
+    }
+
+    @GetMapping(params = {"fields", "!modifiedSince"})
+    public ResponseEntity<List<Map<String, Object>>> getAllAuthorFields(@RequestParam List<String> fields) {
+        Map<String, String> selected = FieldProjector.resolve(fields, FIELDS);
+        if (selected == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(FieldProjector.inIdOrder(selected,
+                query -> shardTemplate.gather(() -> fieldProjector.select(Author.class, query, Map.of()))));
+    }
+
+    @GetMapping(params = {"modifiedSince", "!fields"})
+    public ResponseEntity<ChangeSet<Author>> getAuthorsModifiedSince(@RequestParam Instant modifiedSince) {
+        if (deltaSync.isExpired(modifiedSince)) {
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        }
+        Instant watermark = deltaSync.nextWatermark();
+        return ResponseEntity.ok(new ChangeSet<>(
+                shardTemplate.gather(() -> authorRepository.findByUpdatedAtGreaterThanEqual(modifiedSince)),
+                deltaSync.deletedSince("author", modifiedSince),
+                watermark));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Author> getAuthorById(@PathVariable Long id) {
-        return authorRepository.findById(id)
+        return shardTemplate.onShard(shardRouter.authorShard(id), () -> authorRepository.findById(id))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getAuthorFieldsById(@PathVariable Long id,
+                                                                   @RequestParam List<String> fields) {
+        Map<String, String> selected = FieldProjector.resolve(fields, FIELDS);
+        if (selected == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return shardTemplate.onShard(shardRouter.authorShard(id),
+                        () -> fieldProjector.select(Author.class, selected, Map.of("id", id))).stream()
+                .findFirst()
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<AuthorStats> getAuthorStats(@PathVariable Long id) {
+        return shardTemplate.onShard(shardRouter.authorShard(id), () -> {
+            if (!authorRepository.existsById(id)) {
+                return ResponseEntity.notFound().<AuthorStats>build();
+            }
+            return ResponseEntity.ok(authorStatsService.findByAuthorId(id).orElseGet(() -> {
+                AuthorStats empty = new AuthorStats();
+                empty.setAuthorId(id);
+                return empty;
+            }));
+        });
+    }
+
+    @GetMapping("/{id}/recipes")
+    public ResponseEntity<KeysetPage<RecipeSummary>> getAuthorRecipes(@PathVariable Long id,
+                                                                      @RequestParam(defaultValue = "0") long after,
+                                                                      @RequestParam(defaultValue = "20") int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return shardTemplate.onShard(shardRouter.authorShard(id), () -> {
+            if (!authorRepository.existsById(id)) {
+                return ResponseEntity.notFound().<KeysetPage<RecipeSummary>>build();
+            }
+            // One extra row tells whether another page follows
+            List<RecipeSummary> recipes = recipeRepository.findByAuthorId(id, after, PageRequest.ofSize(limit + 1));
+            Long next = null;
+            if (recipes.size() > limit) {
+                recipes = recipes.subList(0, limit);
+                next = recipes.getLast().id();
+            }
+            return ResponseEntity.ok(new KeysetPage<>(recipes, recipeRepository.countByAuthorId(id), next));
+        });
+    }
+
     @PostMapping
     public ResponseEntity<Author> createAuthor(@RequestBody Author author) {
-        Author saved = authorRepository.save(author);
+        Author saved = shardTemplate.onShard(shardRouter.placeAuthor(), () -> {
+            Author created = authorRepository.save(author);
+            authorStatsService.authorCreated(created);
+            eventPublisher.publishEvent(EntityChange.created("author", created.getId()));
+            return created;
+        });
         return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<Author> updateAuthor(@PathVariable Long id, @RequestBody Author author) {
-        return authorRepository.findById(id)
+        return shardTemplate.onShard(shardRouter.authorShard(id), () -> authorRepository.findById(id)
                 .map(existing -> {
+                    if (author.getVersion() != null && !author.getVersion().equals(existing.getVersion())) {
+                        return ResponseEntity.status(HttpStatus.CONFLICT).<Author>build();
+                    }
                     existing.setName(author.getName());
-                    return ResponseEntity.ok(authorRepository.save(existing));
+                    Author saved = authorRepository.save(existing);
+                    eventPublisher.publishEvent(EntityChange.updated("author", id));
+                    return ResponseEntity.ok(saved);
                 })
-                .orElse(ResponseEntity.notFound().build());
+                .orElse(ResponseEntity.notFound().build()));
+    }
+
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patchAuthor(@PathVariable Long id, @RequestBody AuthorPatch patch) {
+        if (!patch.hasChanges()) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (patch.version() == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED).build();
+        }
+        Map<String, Object> changes = Map.of("name", patch.name());
+        return shardTemplate.onShard(shardRouter.authorShard(id), () -> {
+            if (entityPatcher.patch(Author.class, id, patch.version(), changes, Map.of()) == 0) {
+                return authorRepository.existsById(id)
+                        ? ResponseEntity.status(HttpStatus.CONFLICT).<Void>build()
+                        : ResponseEntity.notFound().<Void>build();
+            }
+            eventPublisher.publishEvent(EntityChange.updated("author", id));
+            return ResponseEntity.noContent().<Void>build();
+        });
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteAuthor(@PathVariable Long id) {
-        // INTENTIONAL BUG: Does not check for or delete associated recipes
-        // This will leave orphaned recipes when an author is deleted
-        if (authorRepository.existsById(id)) {
-            authorRepository.deleteById(id);
-            return ResponseEntity.noContent().build();
-        }
-        return ResponseEntity.notFound().build();
+        return shardTemplate.onShard(shardRouter.authorShard(id), () -> {
+            // INTENTIONAL BUG: Does not check for or delete associated recipes
+            // This will leave orphaned recipes when an author is deleted
+            if (authorRepository.bulkDeleteById(id) == 0) {
+                return ResponseEntity.notFound().<Void>build();
+            }
+            authorStatsService.authorDeleted(id);
+            eventPublisher.publishEvent(EntityChange.deleted("author", id));
+            return ResponseEntity.noContent().<Void>build();
+        });
     }
 }
@@ -0,0 +1,33 @@
+package com.rgs.recipeapi.controller;
+
+import com.rgs.recipeapi.analytics.AutocompleteService;
+import com.rgs.recipeapi.dto.Suggestion;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/autocomplete")
+public class AutocompleteController {
+
+    private final AutocompleteService autocompleteService;
+
+    public AutocompleteController(AutocompleteService autocompleteService) {
+        this.autocompleteService = autocompleteService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<Suggestion>> autocomplete(@RequestParam String prefix,
+                                                         @RequestParam(defaultValue = "recipe") String type,
+                                                         @RequestParam(defaultValue = "10") int limit) {
+        AutocompleteService.Type parsed;
+        try {
+            parsed = AutocompleteService.Type.valueOf(type.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(autocompleteService.complete(parsed, prefix, limit));
+    }
+}
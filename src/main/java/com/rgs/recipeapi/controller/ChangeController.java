@@ -0,0 +1,23 @@
+package com.rgs.recipeapi.controller;
+
+import com.rgs.recipeapi.feed.ChangeFeed;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/changes")
+public class ChangeController {
+
+    private final ChangeFeed changeFeed;
+
+    public ChangeController(ChangeFeed changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                                    @RequestParam(required = false) Long since) {
+        return changeFeed.subscribe(lastEventId != null ? lastEventId : since);
+    }
+}
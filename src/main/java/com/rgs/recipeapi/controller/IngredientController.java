@@ -1,43 +1,124 @@
 package com.rgs.recipeapi.controller;
 
+import com.rgs.recipeapi.analytics.AuthorStatsService;
+import com.rgs.recipeapi.dto.ChangeSet;
+import com.rgs.recipeapi.dto.IngredientPatch;
 import com.rgs.recipeapi.entity.Ingredient;
+import com.rgs.recipeapi.feed.DeltaSync;
+import com.rgs.recipeapi.feed.EntityChange;
+import com.rgs.recipeapi.repository.CoalescedReads;
+import com.rgs.recipeapi.repository.EntityPatcher;
+import com.rgs.recipeapi.repository.FieldProjector;
 import com.rgs.recipeapi.repository.IngredientRepository;
 import com.rgs.recipeapi.repository.RecipeRepository;
+import com.rgs.recipeapi.shard.ShardRouter;
+import com.rgs.recipeapi.shard.ShardTemplate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/recipes/{recipeId}/ingredients")
 public class IngredientController {
 
+    private static final Map<String, String> FIELDS = Map.of(
+            "id", "id",
+            "name", "name",
+            "quantity", "quantity",
+            "unit", "unit",
+            "recipeId", "recipe.id",
+            "version", "version",
+            "updatedAt", "updatedAt");
+
     private final IngredientRepository ingredientRepository;
     private final RecipeRepository recipeRepository;
+    private final AuthorStatsService authorStatsService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DeltaSync deltaSync;
+    private final EntityPatcher entityPatcher;
+    private final FieldProjector fieldProjector;
+    private final CoalescedReads coalescedReads;
+    private final ShardTemplate shardTemplate;
+    private final ShardRouter shardRouter;
 
     public IngredientController(IngredientRepository ingredientRepository,
-                                RecipeRepository recipeRepository) {
+                                RecipeRepository recipeRepository,
+                                AuthorStatsService authorStatsService,
+                                ApplicationEventPublisher eventPublisher,
+                                DeltaSync deltaSync,
+                                EntityPatcher entityPatcher,
+                                FieldProjector fieldProjector,
+                                CoalescedReads coalescedReads,
+                                ShardTemplate shardTemplate,
+                                ShardRouter shardRouter) {
         this.ingredientRepository = ingredientRepository;
         this.recipeRepository = recipeRepository;
+        this.authorStatsService = authorStatsService;
+        this.eventPublisher = eventPublisher;
+        this.deltaSync = deltaSync;
+        this.entityPatcher = entityPatcher;
+        this.fieldProjector = fieldProjector;
+        this.coalescedReads = coalescedReads;
+        this.shardTemplate = shardTemplate;
+        this.shardRouter = shardRouter;
     }
 
-    @GetMapping
+    @GetMapping(params = {"!fields", "!modifiedSince"})
     public ResponseEntity<List<Ingredient>> getIngredients(@PathVariable Long recipeId) {
-        if (!recipeRepository.existsById(recipeId)) {
-            return ResponseEntity.notFound().build();
+        return coalescedReads.findIngredients(recipeId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(params = {"fields", "!modifiedSince"})
+    public ResponseEntity<List<Map<String, Object>>> getIngredientFields(@PathVariable Long recipeId,
+                                                                         @RequestParam List<String> fields) {
+        Map<String, String> selected = FieldProjector.resolve(fields, FIELDS);
+        if (selected == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return shardTemplate.onShard(shardRouter.recipeShard(recipeId), () -> recipeRepository.existsById(recipeId)
+                ? ResponseEntity.ok(fieldProjector.select(Ingredient.class, selected, Map.of("recipe.id", recipeId)))
+                : ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(params = {"modifiedSince", "!fields"})
+    public ResponseEntity<ChangeSet<Ingredient>> getIngredientsModifiedSince(@PathVariable Long recipeId,
+                                                                              @RequestParam Instant modifiedSince) {
+        if (deltaSync.isExpired(modifiedSince)) {
+            return ResponseEntity.status(HttpStatus.GONE).build();
         }
-        return ResponseEntity.ok(ingredientRepository.findByRecipeId(recipeId));
+        Instant watermark = deltaSync.nextWatermark();
+        return shardTemplate.onShard(shardRouter.recipeShard(recipeId), () -> recipeRepository.existsById(recipeId)
+                ? ResponseEntity.ok(new ChangeSet<>(
+                        ingredientRepository.findByRecipeIdAndUpdatedAtGreaterThanEqual(recipeId, modifiedSince),
+                        deltaSync.deletedSince("ingredient", recipeId, modifiedSince),
+                        watermark))
+                : ResponseEntity.notFound().build());
     }
 
     @PostMapping
     public ResponseEntity<Ingredient> createIngredient(@PathVariable Long recipeId,
                                                         @RequestBody Ingredient ingredient) {
+        return shardTemplate.onShard(shardRouter.recipeShard(recipeId), () -> addIngredient(recipeId, ingredient));
+    }
+
+    private ResponseEntity<Ingredient> addIngredient(Long recipeId, Ingredient ingredient) {
         return recipeRepository.findById(recipeId)
                 .map(recipe -> {
                     ingredient.setRecipe(recipe);
                     // INTENTIONAL BUG: No validation on quantity
                     Ingredient saved = ingredientRepository.save(ingredient);
+                    // Ingredient, recipe, then author_stats: the lock order every write keeps, deletes included
+                    recipeRepository.adjustIngredientCount(recipeId, 1, Instant.now());
+                    authorStatsService.ingredientCreated(saved);
+                    eventPublisher.publishEvent(EntityChange.created("ingredient", saved.getId(), recipeId));
                     return ResponseEntity.status(HttpStatus.CREATED).body(saved);
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -47,29 +128,77 @@ public class IngredientController {
     public ResponseEntity<Ingredient> updateIngredient(@PathVariable Long recipeId,
                                                         @PathVariable Long ingredientId,
                                                         @RequestBody Ingredient ingredient) {
+        return shardTemplate.onShard(shardRouter.recipeShard(recipeId),
+                () -> replaceIngredient(recipeId, ingredientId, ingredient));
+    }
+
+    private ResponseEntity<Ingredient> replaceIngredient(Long recipeId, Long ingredientId, Ingredient ingredient) {
         if (!recipeRepository.existsById(recipeId)) {
             return ResponseEntity.notFound().build();
         }
         return ingredientRepository.findById(ingredientId)
                 .map(existing -> {
+                    if (ingredient.getVersion() != null && !ingredient.getVersion().equals(existing.getVersion())) {
+                        return ResponseEntity.status(HttpStatus.CONFLICT).<Ingredient>build();
+                    }
                     existing.setName(ingredient.getName());
                     existing.setQuantity(ingredient.getQuantity());
                     existing.setUnit(ingredient.getUnit());
-                    return ResponseEntity.ok(ingredientRepository.save(existing));
+                    Ingredient saved = ingredientRepository.save(existing);
+                    authorStatsService.ingredientUpdated(saved);
+                    eventPublisher.publishEvent(EntityChange.updated("ingredient", ingredientId, recipeId));
+                    return ResponseEntity.ok(saved);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @PatchMapping("/{ingredientId}")
+    public ResponseEntity<Void> patchIngredient(@PathVariable Long recipeId,
+                                                @PathVariable Long ingredientId,
+                                                @RequestBody IngredientPatch patch) {
+        if (!patch.hasChanges()) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (patch.version() == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED).build();
+        }
+        return shardTemplate.onShard(shardRouter.recipeShard(recipeId),
+                () -> applyPatch(recipeId, ingredientId, patch));
+    }
+
+    private ResponseEntity<Void> applyPatch(Long recipeId, Long ingredientId, IngredientPatch patch) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        if (patch.name() != null) {
+            changes.put("name", patch.name());
+        }
+        if (patch.quantity() != null) {
+            changes.put("quantity", patch.quantity());
+        }
+        if (patch.unit() != null) {
+            changes.put("unit", patch.unit());
+        }
+        if (entityPatcher.patch(Ingredient.class, ingredientId, patch.version(), changes,
+                Map.of("recipe.id", recipeId)) == 0) {
+            return ingredientRepository.existsByIdAndRecipeId(ingredientId, recipeId)
+                    ? ResponseEntity.status(HttpStatus.CONFLICT).build()
+                    : ResponseEntity.notFound().build();
+        }
+        authorStatsService.recipeTouched(recipeId);
+        eventPublisher.publishEvent(EntityChange.updated("ingredient", ingredientId, recipeId));
+        return ResponseEntity.noContent().build();
+    }
+
     @DeleteMapping("/{ingredientId}")
     public ResponseEntity<Void> deleteIngredient(@PathVariable Long recipeId,
                                                   @PathVariable Long ingredientId) {
-        if (!recipeRepository.existsById(recipeId)) {
-            return ResponseEntity.notFound().build();
-        }
-        if (ingredientRepository.existsById(ingredientId)) {
-            ingredientRepository.deleteById(ingredientId);
-            return ResponseEntity.noContent().build();
-        }
-        return ResponseEntity.notFound().build();
+        return shardTemplate.onShard(shardRouter.recipeShard(recipeId), () -> {
+            if (ingredientRepository.bulkDeleteByIdAndRecipeId(ingredientId, recipeId) == 0) {
+                return ResponseEntity.notFound().<Void>build();
+            }
+            recipeRepository.adjustIngredientCount(recipeId, -1, Instant.now());
+            authorStatsService.ingredientDeleted(recipeId);
+            eventPublisher.publishEvent(EntityChange.deleted("ingredient", ingredientId, recipeId));
+            return ResponseEntity.noContent().<Void>build();
+        });
     }
 }
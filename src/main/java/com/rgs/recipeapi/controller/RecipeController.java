@@ -1,60 +1,360 @@
 package com.rgs.recipeapi.controller;
 
+import com.rgs.recipeapi.analytics.AuthorStatsService;
+import com.rgs.recipeapi.analytics.SimilarityService;
+import com.rgs.recipeapi.dto.BatchDeleteResult;
+import com.rgs.recipeapi.dto.ChangeSet;
+import com.rgs.recipeapi.dto.RecipeBatch;
+import com.rgs.recipeapi.dto.RecipeFilter;
+import com.rgs.recipeapi.dto.RecipePatch;
+import com.rgs.recipeapi.dto.RecipeSummary;
+import com.rgs.recipeapi.dto.SimilarRecipe;
+import com.rgs.recipeapi.entity.Author;
+import com.rgs.recipeapi.entity.Ingredient;
 import com.rgs.recipeapi.entity.Recipe;
+import com.rgs.recipeapi.feed.DeltaSync;
+import com.rgs.recipeapi.feed.EntityChange;
+import com.rgs.recipeapi.repository.AuthorRepository;
+import com.rgs.recipeapi.repository.CoalescedReads;
+import com.rgs.recipeapi.repository.EntityPatcher;
+import com.rgs.recipeapi.repository.FieldProjector;
+import com.rgs.recipeapi.repository.IngredientRepository;
 import com.rgs.recipeapi.repository.RecipeRepository;
+import com.rgs.recipeapi.repository.RecipeSearch;
+import com.rgs.recipeapi.shard.ShardRouter;
+import com.rgs.recipeapi.shard.ShardTemplate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/recipes")
 public class RecipeController {
 
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int DEFAULT_LISTING_SIZE = 100;
+
+    // Must order rows the way RecipeSearch does, to merge the shards' results
+    private static final Map<String, Comparator<RecipeSummary>> SORTS = Map.of(
+            "id", Comparator.comparing(RecipeSummary::id),
+            "title", Comparator.comparing(RecipeSummary::title, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(RecipeSummary::id),
+            "ingredientCount", Comparator.comparingInt(RecipeSummary::ingredientCount)
+                    .thenComparing(RecipeSummary::id));
+
+    private static final Map<String, String> FIELDS = Map.of(
+            "id", "id",
+            "title", "title",
+            "description", "description",
+            "instructions", "instructions",
+            "authorId", "author.id",
+            "version", "version",
+            "updatedAt", "updatedAt");
+
     private final RecipeRepository recipeRepository;
+    private final RecipeSearch recipeSearch;
+    private final IngredientRepository ingredientRepository;
+    private final AuthorRepository authorRepository;
+    private final AuthorStatsService authorStatsService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DeltaSync deltaSync;
+    private final EntityPatcher entityPatcher;
+    private final FieldProjector fieldProjector;
+    private final SimilarityService similarityService;
+    private final CoalescedReads coalescedReads;
+    private final ShardTemplate shardTemplate;
+    private final ShardRouter shardRouter;
 
-    public RecipeController(RecipeRepository recipeRepository) {
+    public RecipeController(RecipeRepository recipeRepository,
+                            RecipeSearch recipeSearch,
+                            IngredientRepository ingredientRepository,
+                            AuthorRepository authorRepository,
+                            AuthorStatsService authorStatsService,
+                            ApplicationEventPublisher eventPublisher,
+                            DeltaSync deltaSync,
+                            EntityPatcher entityPatcher,
+                            FieldProjector fieldProjector,
+                            SimilarityService similarityService,
+                            CoalescedReads coalescedReads,
+                            ShardTemplate shardTemplate,
+                            ShardRouter shardRouter) {
         this.recipeRepository = recipeRepository;
+        this.recipeSearch = recipeSearch;
+        this.ingredientRepository = ingredientRepository;
+        this.authorRepository = authorRepository;
+        this.authorStatsService = authorStatsService;
+        this.eventPublisher = eventPublisher;
+        this.deltaSync = deltaSync;
+        this.entityPatcher = entityPatcher;
+        this.fieldProjector = fieldProjector;
+        this.similarityService = similarityService;
+        this.coalescedReads = coalescedReads;
+        this.shardTemplate = shardTemplate;
+        this.shardRouter = shardRouter;
+    }
+
+    // Description and instructions are left out; they come with GET /recipes/{id} or ?fields=
+    @GetMapping(params = {"!fields", "!modifiedSince", "!ids"})
+    public ResponseEntity<List<RecipeSummary>> getAllRecipes(RecipeFilter filter,
+                                                             @RequestParam(required = false) String sort,
+                                                             @RequestParam(required = false) Integer limit) {
+        if (filter.isEmpty() && sort == null && limit == null) {
+            List<RecipeSummary> recipes = shardTemplate.gather(recipeRepository::findAllSummaries);
+            recipes.sort(Comparator.comparing(RecipeSummary::id));
+            return ResponseEntity.ok(recipes);
+        }
+        String[] order = (sort == null ? "id" : sort).split(",", -1);
+        Comparator<RecipeSummary> comparator = SORTS.get(order[0]);
+        boolean descending = order.length == 2 && "desc".equalsIgnoreCase(order[1]);
+        int size = limit == null ? DEFAULT_LISTING_SIZE : limit;
+        if (comparator == null || order.length > 2 || (order.length == 2 && !descending
+                && !"asc".equalsIgnoreCase(order[1])) || size < 1 || size > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        // An author's recipes are all on the author's shard; otherwise each shard's first page is merged
+        List<RecipeSummary> recipes = filter.authorId() != null
+                ? shardTemplate.onShard(shardRouter.authorShard(filter.authorId()),
+                        () -> recipeSearch.find(filter, order[0], descending, size))
+                : shardTemplate.gather(() -> recipeSearch.find(filter, order[0], descending, size));
+        recipes.sort(descending ? comparator.reversed() : comparator);
+        return ResponseEntity.ok(recipes.size() > size ? recipes.subList(0, size) : recipes);
+    }
+
+    @GetMapping(params = {"fields", "!modifiedSince", "!ids"})
+    public ResponseEntity<List<Map<String, Object>>> getAllRecipeFields(@RequestParam List<String> fields,
+                                                                        RecipeFilter filter,
+                                                                        @RequestParam(required = false) String sort,
+                                                                        @RequestParam(required = false) Integer limit) {
+        Map<String, String> selected = FieldProjector.resolve(fields, FIELDS);
+        // Projections list every recipe; filtered or sorted pages are only served as summaries
+        if (selected == null || !filter.isEmpty() || sort != null || limit != null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(FieldProjector.inIdOrder(selected,
+                query -> shardTemplate.gather(() -> fieldProjector.select(Recipe.class, query, Map.of()))));
     }
 
-    @GetMapping
-    public List<Recipe> getAllRecipes() {
-        return recipeRepository.findAll();
+    @GetMapping(params = {"modifiedSince", "!fields", "!ids"})
+    public ResponseEntity<ChangeSet<Recipe>> getRecipesModifiedSince(@RequestParam Instant modifiedSince) {
+        if (deltaSync.isExpired(modifiedSince)) {
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        }
+        Instant watermark = deltaSync.nextWatermark();
+        return ResponseEntity.ok(new ChangeSet<>(
+                shardTemplate.gather(() -> recipeRepository.findByUpdatedAtGreaterThanEqual(modifiedSince)),
+                deltaSync.deletedSince("recipe", modifiedSince),
+                watermark));
+    }
+
+    // Per shard, one IN query for the recipes with their authors and, if asked, one for all their ingredients
+    @GetMapping(params = {"ids", "!fields", "!modifiedSince"})
+    public ResponseEntity<RecipeBatch> getRecipesByIds(@RequestParam List<Long> ids,
+                                                       @RequestParam(required = false) String include,
+                                                       RecipeFilter filter,
+                                                       @RequestParam(required = false) String sort,
+                                                       @RequestParam(required = false) Integer limit) {
+        // A batch is returned in request order and in full; listing conditions would be silently ignored
+        if (ids.size() > MAX_BATCH_SIZE || (include != null && !"ingredients".equals(include))
+                || !filter.isEmpty() || sort != null || limit != null) {
+            return ResponseEntity.badRequest().build();
+        }
+        boolean withIngredients = include != null;
+        Map<Long, Recipe> found = new HashMap<>();
+        Map<Long, List<Ingredient>> ingredientsByRecipe = new HashMap<>();
+        shardRouter.recipesByShard(ids).forEach((shard, shardIds) -> shardTemplate.runOnShard(shard, () -> {
+            recipeRepository.findWithAuthorByIdIn(shardIds).forEach(recipe -> found.put(recipe.getId(), recipe));
+            if (withIngredients) {
+                for (Ingredient ingredient : ingredientRepository.findByRecipeIdIn(shardIds)) {
+                    ingredientsByRecipe.computeIfAbsent(ingredient.getRecipe().getId(), id -> new ArrayList<>())
+                            .add(ingredient);
+                }
+            }
+        }));
+
+        List<Recipe> recipes = new ArrayList<>(found.size());
+        Map<Long, List<Ingredient>> ingredients = withIngredients ? new LinkedHashMap<>() : null;
+        List<Long> missing = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            Recipe recipe = found.get(id);
+            if (recipe == null) {
+                missing.add(id);
+                continue;
+            }
+            recipes.add(recipe);
+            if (withIngredients) {
+                ingredients.put(id, ingredientsByRecipe.getOrDefault(id, List.of()));
+            }
+        }
+        return ResponseEntity.ok(new RecipeBatch(recipes, ingredients, missing));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Recipe> getRecipeById(@PathVariable Long id) {
-        return recipeRepository.findById(id)
+        return coalescedReads.findRecipe(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getRecipeFieldsById(@PathVariable Long id,
+                                                                   @RequestParam List<String> fields) {
+        Map<String, String> selected = FieldProjector.resolve(fields, FIELDS);
+        if (selected == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return shardTemplate.onShard(shardRouter.recipeShard(id),
+                        () -> fieldProjector.select(Recipe.class, selected, Map.of("id", id))).stream()
+                .findFirst()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<List<SimilarRecipe>> getSimilarRecipes(@PathVariable Long id,
+                                                                 @RequestParam(defaultValue = "10") int k) {
+        if (similarityService.contains(id)) {
+            return ResponseEntity.ok(similarityService.similar(id, k));
+        }
+        // Recipes without ingredients are not indexed and have nothing to compare
+        return shardTemplate.onShard(shardRouter.recipeShard(id), () -> recipeRepository.existsById(id))
+                ? ResponseEntity.ok(List.of())
+                : ResponseEntity.notFound().build();
+    }
+
     @PostMapping
     public ResponseEntity<Recipe> createRecipe(@RequestBody Recipe recipe) {
-        Recipe saved = recipeRepository.save(recipe);
+        Long authorId = recipe.getAuthor() == null ? null : recipe.getAuthor().getId();
+        recipe.setIngredientCount(0);
+        Recipe saved = shardTemplate.onShard(shardRouter.authorShard(authorId), () -> {
+            Recipe created = recipeRepository.save(recipe);
+            authorStatsService.recipeCreated(created);
+            eventPublisher.publishEvent(EntityChange.created("recipe", created.getId()));
+            return created;
+        });
         return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
 
+    // Recipes live on their author's shard, so the new author must be on the same shard
     @PutMapping("/{id}")
     public ResponseEntity<Recipe> updateRecipe(@PathVariable Long id, @RequestBody Recipe recipe) {
+        return shardTemplate.onShard(shardRouter.recipeShard(id), () -> replaceRecipe(id, recipe));
+    }
+
+    private ResponseEntity<Recipe> replaceRecipe(Long id, Recipe recipe) {
+        if (recipe.getAuthor() != null && !authorRepository.existsById(recipe.getAuthor().getId())) {
+            return ResponseEntity.badRequest().build();
+        }
         return recipeRepository.findById(id)
                 .map(existing -> {
+                    if (recipe.getVersion() != null && !recipe.getVersion().equals(existing.getVersion())) {
+                        return ResponseEntity.status(HttpStatus.CONFLICT).<Recipe>build();
+                    }
+                    Long previousAuthorId = existing.getAuthor() == null ? null : existing.getAuthor().getId();
                     existing.setTitle(recipe.getTitle());
                     existing.setDescription(recipe.getDescription());
                     existing.setInstructions(recipe.getInstructions());
                     existing.setAuthor(recipe.getAuthor());
-                    return ResponseEntity.ok(recipeRepository.save(existing));
+                    // Flushed first so every recipe write locks the recipe row before the author_stats row
+                    Recipe saved = recipeRepository.saveAndFlush(existing);
+                    authorStatsService.recipeUpdated(previousAuthorId, saved, ingredientRepository.countByRecipeId(id));
+                    eventPublisher.publishEvent(EntityChange.updated("recipe", id));
+                    return ResponseEntity.ok(saved);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patchRecipe(@PathVariable Long id, @RequestBody RecipePatch patch) {
+        if (!patch.hasChanges()) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (patch.version() == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED).build();
+        }
+        return shardTemplate.onShard(shardRouter.recipeShard(id), () -> applyPatch(id, patch));
+    }
+
+    private ResponseEntity<Void> applyPatch(Long id, RecipePatch patch) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        if (patch.title() != null) {
+            changes.put("title", patch.title());
+        }
+        if (patch.description() != null) {
+            changes.put("description", patch.description());
+        }
+        if (patch.instructions() != null) {
+            changes.put("instructions", patch.instructions());
+        }
+        // Reassigning the author is the one case that needs the current row, to move the author counters
+        Long previousAuthorId = null;
+        if (patch.authorId() != null) {
+            if (!authorRepository.existsById(patch.authorId())) {
+                return ResponseEntity.badRequest().build();
+            }
+            previousAuthorId = recipeRepository.findAuthorIdById(id);
+            changes.put("author", entityPatcher.reference(Author.class, patch.authorId()));
+        }
+        if (entityPatcher.patch(Recipe.class, id, patch.version(), changes, Map.of()) == 0) {
+            return recipeRepository.existsById(id)
+                    ? ResponseEntity.status(HttpStatus.CONFLICT).build()
+                    : ResponseEntity.notFound().build();
+        }
+        if (patch.authorId() != null) {
+            authorStatsService.recipeMoved(previousAuthorId, patch.authorId(), ingredientRepository.countByRecipeId(id));
+        } else {
+            authorStatsService.recipeTouched(id);
+        }
+        eventPublisher.publishEvent(EntityChange.updated("recipe", id));
+        return ResponseEntity.noContent().build();
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteRecipe(@PathVariable Long id) {
-        if (recipeRepository.existsById(id)) {
-            recipeRepository.deleteById(id);
-            return ResponseEntity.noContent().build();
+        return shardTemplate.onShard(shardRouter.recipeShard(id), () -> {
+            // Locked before its author_stats row, like every recipe write
+            if (recipeRepository.lockExistingIds(List.of(id)).isEmpty()) {
+                return ResponseEntity.notFound().<Void>build();
+            }
+            authorStatsService.recipeDeleting(id);
+            recipeRepository.bulkDeleteById(id);
+            eventPublisher.publishEvent(EntityChange.deleted("recipe", id));
+            return ResponseEntity.noContent().<Void>build();
+        });
+    }
+
+    // One delete per shard involved; a failure on one shard does not undo the others
+    @DeleteMapping(params = "ids")
+    public ResponseEntity<BatchDeleteResult> deleteRecipes(@RequestParam List<Long> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<Long> existing = new ArrayList<>();
+        shardRouter.recipesByShard(ids).forEach((shard, shardIds) ->
+                existing.addAll(shardTemplate.onShard(shard, () -> deleteExisting(shardIds))));
+        Set<Long> deleted = new HashSet<>(existing);
+        List<Long> missing = ids.stream().filter(id -> !deleted.contains(id)).distinct().toList();
+        return ResponseEntity.ok(new BatchDeleteResult(existing, missing));
+    }
+
+    private List<Long> deleteExisting(List<Long> ids) {
+        List<Long> existing = recipeRepository.lockExistingIds(ids);
+        if (!existing.isEmpty()) {
+            authorStatsService.recipesDeleting(existing);
+            recipeRepository.bulkDeleteByIdIn(existing);
+            existing.forEach(id -> eventPublisher.publishEvent(EntityChange.deleted("recipe", id)));
         }
-        return ResponseEntity.notFound().build();
+        return existing;
     }
 }
@@ -0,0 +1,18 @@
+package com.rgs.recipeapi.controller;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+public class RestExceptionHandler {
+
+    // Lock timeouts and deadlocks, for instance between a write and a shard move of the same author
+    @ExceptionHandler({OptimisticLockingFailureException.class, PessimisticLockingFailureException.class})
+    public ResponseEntity<Void> handleOptimisticLockingFailure() {
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+}
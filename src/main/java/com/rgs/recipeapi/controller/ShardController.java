@@ -0,0 +1,52 @@
+package com.rgs.recipeapi.controller;
+
+import com.rgs.recipeapi.dto.ShardMove;
+import com.rgs.recipeapi.dto.ShardStats;
+import com.rgs.recipeapi.repository.AuthorRepository;
+import com.rgs.recipeapi.repository.IngredientRepository;
+import com.rgs.recipeapi.repository.RecipeRepository;
+import com.rgs.recipeapi.shard.ShardRebalancer;
+import com.rgs.recipeapi.shard.ShardTemplate;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/shards")
+public class ShardController {
+
+    private final ShardTemplate shardTemplate;
+    private final ShardRebalancer shardRebalancer;
+    private final AuthorRepository authorRepository;
+    private final RecipeRepository recipeRepository;
+    private final IngredientRepository ingredientRepository;
+
+    public ShardController(ShardTemplate shardTemplate,
+                           ShardRebalancer shardRebalancer,
+                           AuthorRepository authorRepository,
+                           RecipeRepository recipeRepository,
+                           IngredientRepository ingredientRepository) {
+        this.shardTemplate = shardTemplate;
+        this.shardRebalancer = shardRebalancer;
+        this.authorRepository = authorRepository;
+        this.recipeRepository = recipeRepository;
+        this.ingredientRepository = ingredientRepository;
+    }
+
+    @GetMapping
+    public List<ShardStats> getShards() {
+        return shardTemplate.perShard(shard -> new ShardStats(shard,
+                authorRepository.count(), recipeRepository.count(), ingredientRepository.count()));
+    }
+
+    @PostMapping("/authors/{id}")
+    public ResponseEntity<ShardMove> moveAuthor(@PathVariable Long id, @RequestParam int shard) {
+        if (shard < 0 || shard >= shardTemplate.count()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return shardRebalancer.moveAuthor(id, shard)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,70 @@
+package com.rgs.recipeapi.controller;
+
+import com.rgs.recipeapi.analytics.CatalogueSnapshotService;
+import com.rgs.recipeapi.analytics.SimilarityService;
+import com.rgs.recipeapi.dto.AuthorCount;
+import com.rgs.recipeapi.dto.CoalescingStats;
+import com.rgs.recipeapi.dto.CatalogueSummary;
+import com.rgs.recipeapi.dto.CountEntry;
+import com.rgs.recipeapi.dto.SimilarityIndexStats;
+import com.rgs.recipeapi.dto.WarmUpStats;
+import com.rgs.recipeapi.repository.CoalescedReads;
+import com.rgs.recipeapi.warmup.WarmUp;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/stats")
+public class StatsController {
+
+    private final CatalogueSnapshotService snapshotService;
+    private final SimilarityService similarityService;
+    private final CoalescedReads coalescedReads;
+    private final WarmUp warmUp;
+
+    public StatsController(CatalogueSnapshotService snapshotService,
+                           SimilarityService similarityService,
+                           CoalescedReads coalescedReads,
+                           WarmUp warmUp) {
+        this.snapshotService = snapshotService;
+        this.similarityService = similarityService;
+        this.coalescedReads = coalescedReads;
+        this.warmUp = warmUp;
+    }
+
+    @GetMapping
+    public CatalogueSummary getSummary() {
+        return snapshotService.current().summary();
+    }
+
+    @GetMapping("/recipes-per-author")
+    public List<AuthorCount> getRecipesPerAuthor() {
+        return snapshotService.current().recipesPerAuthor();
+    }
+
+    @GetMapping("/top-ingredients")
+    public List<CountEntry> getTopIngredients(@RequestParam(defaultValue = "10") int limit) {
+        return snapshotService.current().topIngredients(limit);
+    }
+
+    @GetMapping("/units")
+    public List<CountEntry> getUnitDistribution() {
+        return snapshotService.current().unitDistribution();
+    }
+
+    @GetMapping("/similarity")
+    public SimilarityIndexStats getSimilarityIndexStats() {
+        return similarityService.stats();
+    }
+
+    @GetMapping("/coalescing")
+    public List<CoalescingStats> getCoalescingStats() {
+        return coalescedReads.stats();
+    }
+
+    @GetMapping("/warmup")
+    public WarmUpStats getWarmUpStats() {
+        return warmUp.stats();
+    }
+}
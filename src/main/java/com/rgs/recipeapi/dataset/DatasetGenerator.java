@@ -0,0 +1,213 @@
+package com.rgs.recipeapi.dataset;
+
+import com.rgs.recipeapi.analytics.AuthorStatsService;
+import com.rgs.recipeapi.dto.RecipeData;
+import com.rgs.recipeapi.shard.ShardRouter;
+import com.rgs.recipeapi.shard.ShardTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates a {@link SyntheticDataset} of {@code recipe.dataset.recipes} recipes at startup, either as NDJSON files
+ * in {@code recipe.dataset.output} or, when no output directory is set, inserted straight into the database.
+ * Does nothing while {@code recipe.dataset.recipes} is 0.
+ */
+@Component
+public class DatasetGenerator implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(DatasetGenerator.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardTemplate shardTemplate;
+    private final ObjectMapper objectMapper;
+    private final AuthorStatsService authorStatsService;
+    private final long recipes;
+    private final int authors;
+    private final long seed;
+    private final String output;
+    private final int batchSize;
+
+    public DatasetGenerator(JdbcTemplate jdbcTemplate,
+                            ShardTemplate shardTemplate,
+                            ObjectMapper objectMapper,
+                            AuthorStatsService authorStatsService,
+                            @Value("${recipe.dataset.recipes:0}") long recipes,
+                            @Value("${recipe.dataset.authors:0}") int authors,
+                            @Value("${recipe.dataset.seed:1}") long seed,
+                            @Value("${recipe.dataset.output:}") String output,
+                            @Value("${recipe.dataset.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardTemplate = shardTemplate;
+        this.objectMapper = objectMapper;
+        this.authorStatsService = authorStatsService;
+        this.recipes = recipes;
+        this.authors = authors > 0 ? authors : (int) Math.max(1, Math.min(Integer.MAX_VALUE, recipes / 25));
+        this.seed = seed;
+        this.output = output;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        if (recipes <= 0) {
+            return;
+        }
+        SyntheticDataset dataset = new SyntheticDataset(seed, authors);
+        if (output.isBlank()) {
+            insert(dataset, recipes);
+        } else {
+            write(dataset, recipes, Path.of(output));
+        }
+    }
+
+    /**
+     * Writes {@code authors.ndjson} and {@code recipes.ndjson}, one {@link RecipeData.AuthorData} or
+     * {@link RecipeData.RecipeItemData} per line.
+     */
+    public void write(SyntheticDataset dataset, long count, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve("authors.ndjson"))) {
+            for (int i = 0; i < dataset.authorCount(); i++) {
+                writer.write(objectMapper.writeValueAsString(dataset.author(i)));
+                writer.newLine();
+            }
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve("recipes.ndjson"))) {
+            for (long i = 0; i < count; i++) {
+                writer.write(objectMapper.writeValueAsString(dataset.recipe(i)));
+                writer.newLine();
+                if ((i + 1) % 1_000_000 == 0) {
+                    log.info("Wrote {} of {} recipes", i + 1, count);
+                }
+            }
+        }
+        log.info("Wrote {} authors and {} recipes to {}", dataset.authorCount(), count, directory);
+    }
+
+    /**
+     * Inserts the dataset with JDBC batches, one transaction per {@code recipe.dataset.batch-size} recipes on a shard.
+     * Authors are spread round-robin across the shards and each recipe goes to its author's shard. Ids are assigned
+     * here, after the current maximum of each shard's id range, and the identity columns are moved past them
+     * afterwards.
+     */
+    public void insert(SyntheticDataset dataset, long count) {
+        int shards = shardTemplate.count();
+        Timestamp now = Timestamp.from(Instant.now());
+        long[] authorBase = new long[shards];
+        long[] recipeId = new long[shards];
+        long[] ingredientId = new long[shards];
+        for (int shard = 0; shard < shards; shard++) {
+            authorBase[shard] = maxId(shard, "author");
+            recipeId[shard] = maxId(shard, "recipe");
+            ingredientId[shard] = maxId(shard, "ingredient");
+        }
+
+        List<List<Object[]>> authorRows = rows(shards, batchSize);
+        for (int i = 0; i < dataset.authorCount(); i++) {
+            int shard = i % shards;
+            authorRows.get(shard).add(new Object[]{authorId(authorBase, i), dataset.authorName(i), now});
+            if (authorRows.get(shard).size() == batchSize || i >= dataset.authorCount() - shards) {
+                List<Object[]> batch = authorRows.set(shard, new ArrayList<>(batchSize));
+                shardTemplate.runOnShard(shard, () -> jdbcTemplate.batchUpdate(
+                        "INSERT INTO author (id, name, version, updated_at) VALUES (?, ?, 0, ?)", batch));
+            }
+        }
+
+        List<List<Object[]>> recipeRows = rows(shards, batchSize);
+        List<List<Object[]>> ingredientRows = rows(shards, batchSize * 8);
+        long inserted = 0;
+        for (long i = 0; i < count; i++) {
+            RecipeData.RecipeItemData recipe = dataset.recipe(i);
+            int author = dataset.authorOf(i);
+            int shard = author % shards;
+            long id = ++recipeId[shard];
+            recipeRows.get(shard).add(new Object[]{id, recipe.getTitle(), recipe.getDescription(),
+                    recipe.getInstructions(), authorId(authorBase, author), recipe.getIngredients().size(), now});
+            for (RecipeData.IngredientData ingredient : recipe.getIngredients()) {
+                ingredientRows.get(shard).add(new Object[]{++ingredientId[shard], ingredient.getName(),
+                        ingredient.getQuantity(), ingredient.getUnit(), id, now});
+            }
+            if (recipeRows.get(shard).size() == batchSize) {
+                inserted = flush(shard, recipeRows, ingredientRows, inserted, count);
+            }
+        }
+        for (int shard = 0; shard < shards; shard++) {
+            if (!recipeRows.get(shard).isEmpty()) {
+                inserted = flush(shard, recipeRows, ingredientRows, inserted, count);
+            }
+        }
+
+        for (int shard = 0; shard < shards; shard++) {
+            long authorsOnShard = (dataset.authorCount() - shard + shards - 1) / shards;
+            long nextAuthor = authorBase[shard] + authorsOnShard + 1;
+            long nextRecipe = recipeId[shard] + 1;
+            long nextIngredient = ingredientId[shard] + 1;
+            shardTemplate.runOnShard(shard, () -> {
+                restartIdentity("author", nextAuthor);
+                restartIdentity("recipe", nextRecipe);
+                restartIdentity("ingredient", nextIngredient);
+            });
+        }
+
+        // Rows inserted here bypass the controllers, like DataLoader's seed
+        authorStatsService.reconcile();
+        log.info("Inserted {} authors and {} recipes across {} shards", dataset.authorCount(), count, shards);
+    }
+
+    private long flush(int shard, List<List<Object[]>> recipeRows, List<List<Object[]>> ingredientRows,
+                       long inserted, long count) {
+        List<Object[]> recipeBatch = recipeRows.set(shard, new ArrayList<>(batchSize));
+        List<Object[]> ingredientBatch = ingredientRows.set(shard, new ArrayList<>(batchSize * 8));
+        shardTemplate.runOnShard(shard, () -> {
+            jdbcTemplate.batchUpdate("INSERT INTO recipe (id, title, description, instructions, author_id, "
+                    + "ingredient_count, version, updated_at) VALUES (?, ?, ?, ?, ?, ?, 0, ?)", recipeBatch);
+            jdbcTemplate.batchUpdate("INSERT INTO ingredient (id, name, quantity, unit, recipe_id, "
+                    + "version, updated_at) VALUES (?, ?, ?, ?, ?, 0, ?)", ingredientBatch);
+        });
+        long total = inserted + recipeBatch.size();
+        if (total / 100_000 > inserted / 100_000) {
+            log.info("Inserted {} of {} recipes", total, count);
+        }
+        return total;
+    }
+
+    // Author i is the (i / shards)th author placed on shard i % shards
+    private long authorId(long[] authorBase, int author) {
+        return authorBase[author % authorBase.length] + author / authorBase.length + 1;
+    }
+
+    private static List<List<Object[]>> rows(int shards, int capacity) {
+        List<List<Object[]>> rows = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            rows.add(new ArrayList<>(capacity));
+        }
+        return rows;
+    }
+
+    // Highest id allocated from the shard's own range; rows moved in from other shards keep ids outside it
+    private long maxId(int shard, String table) {
+        long first = (long) shard << ShardRouter.ID_SHARD_SHIFT;
+        Long max = shardTemplate.onShard(shard, () -> jdbcTemplate.queryForObject(
+                "SELECT MAX(id) FROM " + table + " WHERE id >= ? AND id < ?", Long.class,
+                first, first + (1L << ShardRouter.ID_SHARD_SHIFT)));
+        return max == null ? first : max;
+    }
+
+    private void restartIdentity(String table, long next) {
+        jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+    }
+}
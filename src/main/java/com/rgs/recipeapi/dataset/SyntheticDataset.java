@@ -0,0 +1,192 @@
+package com.rgs.recipeapi.dataset;
+
+import com.rgs.recipeapi.dto.RecipeData;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic generator of {@link RecipeData}-shaped recipes for scale testing.
+ * Ingredient popularity and author productivity are Zipfian, ingredient counts and instruction lengths vary per
+ * recipe. Every recipe is derived from {@code (seed, index)} alone, so any slice of the dataset can be regenerated
+ * without producing the ones before it.
+ */
+public class SyntheticDataset {
+
+    private static final String[] FIRST_NAMES = {
+            "Ada", "Bruno", "Chloe", "Dmitri", "Elena", "Farid", "Greta", "Hiro", "Ines", "Jonas",
+            "Keiko", "Luis", "Maya", "Nikos", "Olga", "Pierre", "Quinn", "Rosa", "Sven", "Tariq",
+            "Uma", "Viktor", "Wen", "Ximena", "Yusuf", "Zara"
+    };
+    private static final String[] LAST_NAMES = {
+            "Baker", "Costa", "Dubois", "Eriksen", "Fischer", "Garcia", "Haddad", "Ito", "Jensen", "Kowalski",
+            "Laurent", "Moreau", "Nakamura", "Okafor", "Petrov", "Rossi", "Santos", "Tanaka", "Novak", "Weber"
+    };
+    private static final String[] BASE_INGREDIENTS = {
+            "salt", "sugar", "flour", "butter", "eggs", "milk", "olive oil", "garlic", "onion", "black pepper",
+            "water", "lemon juice", "vanilla extract", "baking powder", "heavy cream", "tomatoes", "parsley",
+            "cinnamon", "honey", "rice", "chicken breast", "beef", "pork shoulder", "salmon", "shrimp", "tofu",
+            "chickpeas", "lentils", "potatoes", "carrots", "celery", "spinach", "mushrooms", "bell pepper",
+            "zucchini", "eggplant", "cabbage", "ginger", "soy sauce", "vinegar", "mustard", "paprika", "cumin",
+            "coriander", "thyme", "rosemary", "basil", "oregano", "chili flakes", "coconut milk", "yogurt",
+            "parmesan", "mozzarella", "cheddar", "feta", "almonds", "walnuts", "pine nuts", "oats", "breadcrumbs",
+            "pasta", "noodles", "corn", "peas", "green beans", "apples", "bananas", "strawberries", "blueberries",
+            "raisins", "dark chocolate", "cocoa powder", "maple syrup", "yeast", "stock", "white wine", "red wine",
+            "capers", "olives", "anchovies"
+    };
+    private static final String[] MODIFIERS = {
+            "", "fresh", "dried", "ground", "smoked", "chopped", "toasted", "organic", "frozen", "roasted",
+            "grated", "sliced", "unsalted", "wild", "pickled"
+    };
+    private static final String[] UNITS = {
+            "g", "kg", "ml", "l", "tsp", "tbsp", "cup", "cups", "pinch", "large", "small", "cloves", "slices"
+    };
+    private static final String[] ADJECTIVES = {
+            "Classic", "Rustic", "Spicy", "Creamy", "Quick", "Smoky", "Crispy", "Slow-Cooked", "Zesty", "Hearty",
+            "Grandma's", "Weeknight", "Golden", "Herbed", "Sticky", "Light"
+    };
+    private static final String[] DISHES = {
+            "Stew", "Salad", "Pie", "Soup", "Curry", "Tart", "Risotto", "Bake", "Stir-Fry", "Casserole", "Cake",
+            "Skewers", "Pasta", "Bowl", "Gratin", "Fritters", "Tacos", "Roast", "Pudding", "Bread"
+    };
+    private static final String[] STEPS = {
+            "Preheat the oven to %d degrees.",
+            "Chop the %s finely and set aside.",
+            "Heat a pan over medium heat and add the %s.",
+            "Stir in the %s and cook for %d minutes.",
+            "Whisk the %s until smooth.",
+            "Season with the %s to taste.",
+            "Fold in the %s gently so it keeps its texture.",
+            "Simmer for %d minutes, stirring occasionally.",
+            "Let it rest for %d minutes before serving.",
+            "Bake for %d minutes until golden on top.",
+            "Toss with the %s and serve warm.",
+            "Cover and refrigerate for %d minutes."
+    };
+
+    private final long seed;
+    private final int authors;
+    private final List<String> vocabulary;
+    private final ZipfSampler ingredientPopularity;
+    private final ZipfSampler authorProductivity;
+
+    public SyntheticDataset(long seed, int authors) {
+        if (authors < 1) {
+            throw new IllegalArgumentException("authors must be positive");
+        }
+        this.seed = seed;
+        this.authors = authors;
+        this.vocabulary = vocabulary(new SplittableRandom(seed));
+        this.ingredientPopularity = new ZipfSampler(vocabulary.size(), 1.0);
+        this.authorProductivity = new ZipfSampler(authors, 1.1);
+    }
+
+    public int authorCount() {
+        return authors;
+    }
+
+    public int vocabularySize() {
+        return vocabulary.size();
+    }
+
+    /**
+     * Name of author {@code index}; names are unique across {@code 0..authorCount()-1}.
+     */
+    public String authorName(int index) {
+        String name = FIRST_NAMES[index % FIRST_NAMES.length] + " "
+                + LAST_NAMES[(index / FIRST_NAMES.length) % LAST_NAMES.length];
+        int round = index / (FIRST_NAMES.length * LAST_NAMES.length);
+        return round == 0 ? name : name + " " + (round + 1);
+    }
+
+    public RecipeData.AuthorData author(int index) {
+        RecipeData.AuthorData author = new RecipeData.AuthorData();
+        author.setName(authorName(index));
+        return author;
+    }
+
+    /**
+     * Index of the author of recipe {@code index}; low indexes write most of the catalogue.
+     */
+    public int authorOf(long index) {
+        return authorProductivity.sample(random(index));
+    }
+
+    public RecipeData.RecipeItemData recipe(long index) {
+        SplittableRandom random = random(index);
+        int author = authorProductivity.sample(random);
+
+        int ingredientCount = clamp((int) Math.round(8 + random.nextGaussian() * 3), 2, 25);
+        Set<Integer> picked = new LinkedHashSet<>();
+        for (int attempt = 0; picked.size() < ingredientCount && attempt < ingredientCount * 10; attempt++) {
+            picked.add(ingredientPopularity.sample(random));
+        }
+        List<RecipeData.IngredientData> ingredients = new ArrayList<>(picked.size());
+        for (int rank : picked) {
+            RecipeData.IngredientData ingredient = new RecipeData.IngredientData();
+            ingredient.setName(vocabulary.get(rank));
+            ingredient.setUnit(UNITS[rank % UNITS.length]);
+            ingredient.setQuantity(Math.round((0.25 + random.nextDouble() * 8) * 4) / 4f);
+            ingredients.add(ingredient);
+        }
+        String main = ingredients.get(random.nextInt(ingredients.size())).getName();
+        String dish = DISHES[random.nextInt(DISHES.length)];
+
+        RecipeData.RecipeItemData recipe = new RecipeData.RecipeItemData();
+        recipe.setTitle(ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + capitalize(main) + " " + dish);
+        recipe.setDescription("A " + dish.toLowerCase(Locale.ROOT) + " of " + main + " with "
+                + ingredients.get(random.nextInt(ingredients.size())).getName() + ".");
+        recipe.setInstructions(instructions(random, ingredients));
+        recipe.setAuthor(authorName(author));
+        recipe.setIngredients(ingredients);
+        return recipe;
+    }
+
+    private SplittableRandom random(long index) {
+        return new SplittableRandom(seed * 0x9E3779B97F4A7C15L + index);
+    }
+
+    // Log-normal step count: most recipes have a handful of steps, a long tail has dozens
+    private static String instructions(SplittableRandom random, List<RecipeData.IngredientData> ingredients) {
+        int steps = clamp((int) Math.round(Math.exp(Math.log(6) + random.nextGaussian() * 0.7)), 1, 60);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < steps; i++) {
+            String step = STEPS[random.nextInt(STEPS.length)];
+            String name = ingredients.get(random.nextInt(ingredients.size())).getName();
+            int amount = 5 + random.nextInt(36) * 5;
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(step.startsWith("Preheat") ? String.format(step, 150 + random.nextInt(9) * 10)
+                    : step.contains("%s") ? String.format(step, name, amount) : String.format(step, amount));
+        }
+        return text.toString();
+    }
+
+    // Popularity follows a seeded shuffle of the vocabulary rather than its alphabetical order
+    private static List<String> vocabulary(SplittableRandom random) {
+        List<String> names = new ArrayList<>(BASE_INGREDIENTS.length * MODIFIERS.length);
+        for (String modifier : MODIFIERS) {
+            for (String base : BASE_INGREDIENTS) {
+                names.add(modifier.isEmpty() ? base : modifier + " " + base);
+            }
+        }
+        for (int i = names.size() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            names.set(i, names.set(j, names.get(i)));
+        }
+        return names;
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,4 @@
+package com.rgs.recipeapi.dto;
+
+public record AuthorCount(Long authorId, String name, long recipes) {
+}
@@ -0,0 +1,6 @@
+package com.rgs.recipeapi.dto;
+
+import java.util.List;
+
+public record BatchDeleteResult(List<Long> deleted, List<Long> missing) {
+}
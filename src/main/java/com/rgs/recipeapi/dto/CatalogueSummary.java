@@ -0,0 +1,6 @@
+package com.rgs.recipeapi.dto;
+
+import java.time.Instant;
+
+public record CatalogueSummary(int recipes, int ingredients, int authors, int distinctIngredients, Instant builtAt) {
+}
@@ -0,0 +1,7 @@
+package com.rgs.recipeapi.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record ChangeSet<T>(List<T> items, List<Long> deleted, Instant watermark) {
+}
@@ -0,0 +1,4 @@
+package com.rgs.recipeapi.dto;
+
+public record CoalescingStats(String read, long loads, long coalesced) {
+}
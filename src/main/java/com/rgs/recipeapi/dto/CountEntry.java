@@ -0,0 +1,4 @@
+package com.rgs.recipeapi.dto;
+
+public record CountEntry(String key, long count) {
+}
@@ -0,0 +1,4 @@
+package com.rgs.recipeapi.dto;
+
+public record IngredientNameRow(Long id, Long recipeId, String name) {
+}
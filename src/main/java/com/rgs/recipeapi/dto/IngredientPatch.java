@@ -0,0 +1,11 @@
+package com.rgs.recipeapi.dto;
+
+/**
+ * Fields left {@code null} are not changed. The {@code version} the client last read is required.
+ */
+public record IngredientPatch(String name, Float quantity, String unit, Long version) {
+
+    public boolean hasChanges() {
+        return name != null || quantity != null || unit != null;
+    }
+}
@@ -0,0 +1,4 @@
+package com.rgs.recipeapi.dto;
+
+public record IngredientStatsRow(Long id, String name, String unit) {
+}
@@ -0,0 +1,10 @@
+package com.rgs.recipeapi.dto;
+
+import java.util.List;
+
+/**
+ * One page of a listing ordered by id; {@code next} is the {@code after} value for the following page, or null on
+ * the last one.
+ */
+public record KeysetPage<T>(List<T> items, long total, Long next) {
+}
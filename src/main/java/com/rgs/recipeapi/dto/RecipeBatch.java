@@ -0,0 +1,14 @@
+package com.rgs.recipeapi.dto;
+
+import com.rgs.recipeapi.entity.Ingredient;
+import com.rgs.recipeapi.entity.Recipe;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recipes in request order and the requested ids that do not exist. {@code ingredients} maps each returned recipe id
+ * to its ingredients, and is null unless they were asked for.
+ */
+public record RecipeBatch(List<Recipe> recipes, Map<Long, List<Ingredient>> ingredients, List<Long> missing) {
+}
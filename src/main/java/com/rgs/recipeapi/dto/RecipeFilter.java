@@ -0,0 +1,13 @@
+package com.rgs.recipeapi.dto;
+
+/**
+ * Conditions for {@code GET /recipes}; components left {@code null} are not applied.
+ */
+public record RecipeFilter(Long authorId, String titlePrefix, Integer minIngredients, Integer maxIngredients,
+                           String unit) {
+
+    public boolean isEmpty() {
+        return authorId == null && titlePrefix == null && minIngredients == null && maxIngredients == null
+                && unit == null;
+    }
+}
@@ -0,0 +1,11 @@
+package com.rgs.recipeapi.dto;
+
+/**
+ * Fields left {@code null} are not changed. The {@code version} the client last read is required.
+ */
+public record RecipePatch(String title, String description, String instructions, Long authorId, Long version) {
+
+    public boolean hasChanges() {
+        return title != null || description != null || instructions != null || authorId != null;
+    }
+}
@@ -0,0 +1,4 @@
+package com.rgs.recipeapi.dto;
+
+public record RecipeStatsRow(Long id, Long authorId, String authorName) {
+}
@@ -0,0 +1,12 @@
+package com.rgs.recipeapi.dto;
+
+import com.rgs.recipeapi.entity.Author;
+
+import java.time.Instant;
+
+/**
+ * A recipe without its description and instructions, for listings.
+ */
+public record RecipeSummary(Long id, String title, int ingredientCount, Author author, Long version,
+                            Instant updatedAt) {
+}
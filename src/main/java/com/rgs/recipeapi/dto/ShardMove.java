@@ -0,0 +1,4 @@
+package com.rgs.recipeapi.dto;
+
+public record ShardMove(Long authorId, int from, int to, int recipes, int ingredients) {
+}
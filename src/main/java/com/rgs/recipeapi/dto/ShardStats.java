@@ -0,0 +1,4 @@
+package com.rgs.recipeapi.dto;
+
+public record ShardStats(int shard, long authors, long recipes, long ingredients) {
+}
@@ -0,0 +1,4 @@
+package com.rgs.recipeapi.dto;
+
+public record SimilarityIndexStats(int recipes, int buckets, long estimatedBytes, long budgetBytes) {
+}
@@ -0,0 +1,5 @@
+package com.rgs.recipeapi.dto;
+
+public record WarmUpStats(String readiness, long warmUpMillis, long requests, long failed,
+                          long firstMinuteRequests, double firstMinuteP99Millis, boolean firstMinuteComplete) {
+}
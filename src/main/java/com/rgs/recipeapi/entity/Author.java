@@ -1,11 +1,13 @@
 package com.rgs.recipeapi.entity;
 
-import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
-import jakarta.persistence.Id;
+import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.time.Instant;
 
 @Entity
+@DynamicUpdate
+@Table(indexes = @Index(name = "idx_author_updated_at", columnList = "updatedAt"))
 public class Author {
 
     @Id
@@ -14,6 +16,17 @@ public class Author {
 
     private String name;
 
+    @Version
+    private Long version;
+
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = Instant.now();
+    }
+
     public Long getId() {
         return id;
     }
@@ -29,4 +42,20 @@ public class Author {
     public void setName(String name) {
         this.name = name;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
 }
@@ -0,0 +1,57 @@
+package com.rgs.recipeapi.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * An author move that has started but not finished, so it can be undone or completed after a failure. Kept on
+ * shard 0.
+ */
+@Entity
+public class AuthorMove {
+
+    public enum Phase {
+        COPYING, REASSIGNED
+    }
+
+    @Id
+    private Long authorId;
+
+    private int source;
+
+    private int target;
+
+    @Enumerated(EnumType.STRING)
+    private Phase phase;
+
+    public Long getAuthorId() {
+        return authorId;
+    }
+
+    public void setAuthorId(Long authorId) {
+        this.authorId = authorId;
+    }
+
+    public int getSource() {
+        return source;
+    }
+
+    public void setSource(int source) {
+        this.source = source;
+    }
+
+    public int getTarget() {
+        return target;
+    }
+
+    public void setTarget(int target) {
+        this.target = target;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public void setPhase(Phase phase) {
+        this.phase = phase;
+    }
+}
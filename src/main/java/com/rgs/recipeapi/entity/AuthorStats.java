@@ -0,0 +1,51 @@
+package com.rgs.recipeapi.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+import java.time.Instant;
+
+@Entity
+public class AuthorStats {
+
+    @Id
+    private Long authorId;
+
+    private long recipeCount;
+
+    private long ingredientCount;
+
+    private Instant lastModified;
+
+    public Long getAuthorId() {
+        return authorId;
+    }
+
+    public void setAuthorId(Long authorId) {
+        this.authorId = authorId;
+    }
+
+    public long getRecipeCount() {
+        return recipeCount;
+    }
+
+    public void setRecipeCount(long recipeCount) {
+        this.recipeCount = recipeCount;
+    }
+
+    public long getIngredientCount() {
+        return ingredientCount;
+    }
+
+    public void setIngredientCount(long ingredientCount) {
+        this.ingredientCount = ingredientCount;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Instant lastModified) {
+        this.lastModified = lastModified;
+    }
+}
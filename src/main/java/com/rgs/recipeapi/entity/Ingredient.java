@@ -1,8 +1,16 @@
 package com.rgs.recipeapi.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.time.Instant;
 
 @Entity
+@DynamicUpdate
+@Table(indexes = {
+        @Index(name = "idx_ingredient_recipe_updated_at", columnList = "recipe_id, updatedAt"),
+        @Index(name = "idx_ingredient_unit_recipe_id", columnList = "unit, recipe_id")
+})
 public class Ingredient {
 
     @Id
@@ -20,6 +28,17 @@ public class Ingredient {
     @JoinColumn(name = "recipe_id")
     private Recipe recipe;
 
+    @Version
+    private Long version;
+
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = Instant.now();
+    }
+
     public Long getId() {
         return id;
     }
@@ -59,4 +78,20 @@ public class Ingredient {
     public void setRecipe(Recipe recipe) {
         this.recipe = recipe;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
 }
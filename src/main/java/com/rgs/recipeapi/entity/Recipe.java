@@ -1,8 +1,20 @@
 package com.rgs.recipeapi.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.time.Instant;
 
 @Entity
+@DynamicUpdate
+@Table(indexes = {
+        @Index(name = "idx_recipe_updated_at", columnList = "updatedAt"),
+        @Index(name = "idx_recipe_author_id", columnList = "author_id, id"),
+        @Index(name = "idx_recipe_author_title", columnList = "author_id, title"),
+        @Index(name = "idx_recipe_author_ingredient_count", columnList = "author_id, ingredientCount"),
+        @Index(name = "idx_recipe_title", columnList = "title, id"),
+        @Index(name = "idx_recipe_ingredient_count", columnList = "ingredientCount, id")
+})
 public class Recipe {
 
     @Id
@@ -21,6 +33,21 @@ public class Recipe {
     @JoinColumn(name = "author_id")
     private Author author;
 
+    // Denormalized for filtering and sorting; only changed by bulk updates so it never bumps the version
+    @Column(nullable = false)
+    private int ingredientCount;
+
+    @Version
+    private Long version;
+
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = Instant.now();
+    }
+
     public Long getId() {
         return id;
     }
@@ -60,4 +87,28 @@ public class Recipe {
     public void setAuthor(Author author) {
         this.author = author;
     }
+
+    public int getIngredientCount() {
+        return ingredientCount;
+    }
+
+    public void setIngredientCount(int ingredientCount) {
+        this.ingredientCount = ingredientCount;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
 }
@@ -0,0 +1,53 @@
+package com.rgs.recipeapi.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Records that a row was moved off the shard its id was allocated on. Kept on shard 0.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"kind", "entityId"}))
+public class ShardAssignment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String kind;
+
+    private Long entityId;
+
+    private int shard;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public void setKind(String kind) {
+        this.kind = kind;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    public void setShard(int shard) {
+        this.shard = shard;
+    }
+}
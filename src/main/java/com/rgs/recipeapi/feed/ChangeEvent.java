@@ -0,0 +1,6 @@
+package com.rgs.recipeapi.feed;
+
+import java.time.Instant;
+
+public record ChangeEvent(long seq, String entity, EntityChange.Action action, Long id, Long parentId, Instant at) {
+}
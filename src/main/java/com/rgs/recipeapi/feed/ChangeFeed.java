@@ -0,0 +1,137 @@
+package com.rgs.recipeapi.feed;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sequenced log of committed changes, kept in a bounded ring buffer and streamed to SSE subscribers.
+ * Emitters are async, so an idle subscriber holds no request thread; delivery runs on virtual threads and each
+ * subscriber drains from its own cursor, so a slow client never delays the others or the committing request.
+ */
+@Component
+public class ChangeFeed {
+
+    static final String RESET_EVENT = "reset";
+
+    private final ChangeEvent[] ring;
+    private final long emitterTimeoutMs;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService dispatcher = Executors.newVirtualThreadPerTaskExecutor();
+    private long lastSeq;
+
+    public ChangeFeed(@Value("${recipe.changes.buffer-size:10000}") int bufferSize,
+                      @Value("${recipe.changes.emitter-timeout-ms:0}") long emitterTimeoutMs) {
+        this.ring = new ChangeEvent[bufferSize];
+        this.emitterTimeoutMs = emitterTimeoutMs;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(EntityChange change) {
+        append(change);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.signal();
+        }
+    }
+
+    synchronized ChangeEvent append(EntityChange change) {
+        ChangeEvent event = new ChangeEvent(++lastSeq, change.entity(), change.action(), change.id(),
+                change.parentId(), Instant.now());
+        ring[(int) (event.seq() % ring.length)] = event;
+        return event;
+    }
+
+    public synchronized long lastSeq() {
+        return lastSeq;
+    }
+
+    /**
+     * Returns the events after {@code seq}, or {@code null} when some of them have already been evicted or
+     * {@code seq} is ahead of the feed, as it is for clients reconnecting after a restart reset the sequence.
+     */
+    synchronized List<ChangeEvent> eventsAfter(long seq) {
+        long oldest = Math.max(1, lastSeq - ring.length + 1);
+        if (seq + 1 < oldest || seq > lastSeq) {
+            return null;
+        }
+        List<ChangeEvent> events = new ArrayList<>((int) Math.max(0, lastSeq - seq));
+        for (long s = seq + 1; s <= lastSeq; s++) {
+            events.add(ring[(int) (s % ring.length)]);
+        }
+        return events;
+    }
+
+    public SseEmitter subscribe(Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, lastEventId != null ? lastEventId : lastSeq());
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        subscriber.signal();
+        return emitter;
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        dispatcher.shutdownNow();
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private long cursor;
+
+        Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+
+        void signal() {
+            if (scheduled.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        private synchronized void drain() {
+            scheduled.set(false);
+            try {
+                List<ChangeEvent> events = eventsAfter(cursor);
+                if (events == null) {
+                    cursor = lastSeq();
+                    emitter.send(SseEmitter.event().id(Long.toString(cursor)).name(RESET_EVENT).data(cursor));
+                    return;
+                }
+                for (ChangeEvent event : events) {
+                    emitter.send(SseEmitter.event()
+                            .id(Long.toString(event.seq()))
+                            .name(event.entity())
+                            .data(event, MediaType.APPLICATION_JSON));
+                    cursor = event.seq();
+                }
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(this);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
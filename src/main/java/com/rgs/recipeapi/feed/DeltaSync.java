@@ -0,0 +1,79 @@
+package com.rgs.recipeapi.feed;
+
+import com.rgs.recipeapi.entity.Tombstone;
+import com.rgs.recipeapi.repository.TombstoneRepository;
+import com.rgs.recipeapi.shard.ShardTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Support for the {@code ?modifiedSince=} listings.
+ * Deletes are recorded as tombstones in the deleting transaction. Watermarks trail the clock by a commit lag, so
+ * rows stamped just before a slow commit are returned again on the next poll instead of being skipped.
+ * Tombstones live on the shard of the row they replace.
+ */
+@Component
+public class DeltaSync {
+
+    private final TombstoneRepository tombstoneRepository;
+    private final ShardTemplate shardTemplate;
+    private final Duration commitLag;
+    private final Duration tombstoneRetention;
+
+    public DeltaSync(TombstoneRepository tombstoneRepository,
+                     ShardTemplate shardTemplate,
+                     @Value("${recipe.sync.commit-lag-ms:1000}") long commitLagMs,
+                     @Value("${recipe.sync.tombstone-retention-days:30}") long tombstoneRetentionDays) {
+        this.tombstoneRepository = tombstoneRepository;
+        this.shardTemplate = shardTemplate;
+        this.commitLag = Duration.ofMillis(commitLagMs);
+        this.tombstoneRetention = Duration.ofDays(tombstoneRetentionDays);
+    }
+
+    public Instant nextWatermark() {
+        return Instant.now().minus(commitLag);
+    }
+
+    /**
+     * Tombstones older than the retention are purged, so a client this far behind must reload in full.
+     */
+    public boolean isExpired(Instant since) {
+        return since.isBefore(Instant.now().minus(tombstoneRetention));
+    }
+
+    public List<Long> deletedSince(String entity, Instant since) {
+        return shardTemplate.gather(() -> tombstoneRepository.findDeletedIdsSince(entity, since));
+    }
+
+    /**
+     * Called on the parent's shard.
+     */
+    public List<Long> deletedSince(String entity, Long parentId, Instant since) {
+        return tombstoneRepository.findDeletedIdsSince(entity, parentId, since);
+    }
+
+    @EventListener
+    public void recordTombstone(EntityChange change) {
+        if (change.action() != EntityChange.Action.DELETED) {
+            return;
+        }
+        Tombstone tombstone = new Tombstone();
+        tombstone.setEntity(change.entity());
+        tombstone.setEntityId(change.id());
+        tombstone.setParentId(change.parentId());
+        tombstone.setDeletedAt(Instant.now());
+        tombstoneRepository.save(tombstone);
+    }
+
+    @Scheduled(fixedDelayString = "${recipe.sync.tombstone-purge-interval-ms:3600000}")
+    public void purgeTombstones() {
+        Instant cutoff = Instant.now().minus(tombstoneRetention);
+        shardTemplate.forEachShard(() -> tombstoneRepository.deleteOlderThan(cutoff));
+    }
+}
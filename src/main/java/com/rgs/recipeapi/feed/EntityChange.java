@@ -0,0 +1,36 @@
+package com.rgs.recipeapi.feed;
+
+/**
+ * Published by the write paths; {@link ChangeFeed} records it once the surrounding transaction commits.
+ * {@code parentId} is the owning recipe for ingredient changes and {@code null} otherwise.
+ */
+public record EntityChange(String entity, Action action, Long id, Long parentId) {
+
+    public enum Action {
+        CREATED, UPDATED, DELETED
+    }
+
+    public static EntityChange created(String entity, Long id) {
+        return created(entity, id, null);
+    }
+
+    public static EntityChange created(String entity, Long id, Long parentId) {
+        return new EntityChange(entity, Action.CREATED, id, parentId);
+    }
+
+    public static EntityChange updated(String entity, Long id) {
+        return updated(entity, id, null);
+    }
+
+    public static EntityChange updated(String entity, Long id, Long parentId) {
+        return new EntityChange(entity, Action.UPDATED, id, parentId);
+    }
+
+    public static EntityChange deleted(String entity, Long id) {
+        return deleted(entity, id, null);
+    }
+
+    public static EntityChange deleted(String entity, Long id, Long parentId) {
+        return new EntityChange(entity, Action.DELETED, id, parentId);
+    }
+}
@@ -0,0 +1,21 @@
+package com.rgs.recipeapi.repository;
+
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+
+final class AttributePaths {
+
+    private AttributePaths() {
+    }
+
+    /**
+     * Resolves a dotted attribute path such as {@code recipe.id} against the root.
+     */
+    static Path<Object> resolve(Root<?> root, String attribute) {
+        Path<Object> path = null;
+        for (String part : attribute.split("\\.")) {
+            path = path == null ? root.get(part) : path.get(part);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,7 @@
+package com.rgs.recipeapi.repository;
+
+import com.rgs.recipeapi.entity.AuthorMove;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface AuthorMoveRepository extends JpaRepository<AuthorMove, Long> {
+}
@@ -2,6 +2,24 @@ package com.rgs.recipeapi.repository;
 
 import com.rgs.recipeapi.entity.Author;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
 
 public interface AuthorRepository extends JpaRepository<Author, Long> {
+    List<Author> findByUpdatedAtGreaterThanEqual(Instant since);
+
+    // Row lock only; nothing is loaded into the persistence context
+    @Query(value = "select id from author where id = :id for update", nativeQuery = true)
+    List<Long> lockById(@Param("id") Long id);
+
+    @Query(value = "select id from author order by id for update", nativeQuery = true)
+    List<Long> lockAll();
+
+    @Modifying
+    @Query("delete from Author a where a.id = :id")
+    int bulkDeleteById(@Param("id") Long id);
 }
@@ -0,0 +1,71 @@
+package com.rgs.recipeapi.repository;
+
+import com.rgs.recipeapi.entity.AuthorStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface AuthorStatsRepository extends JpaRepository<AuthorStats, Long> {
+
+    @Modifying
+    @Query("update AuthorStats s set s.recipeCount = s.recipeCount + :recipes, "
+            + "s.ingredientCount = s.ingredientCount + :ingredients, s.lastModified = :now "
+            + "where s.authorId = :authorId")
+    int increment(@Param("authorId") Long authorId,
+                  @Param("recipes") long recipes,
+                  @Param("ingredients") long ingredients,
+                  @Param("now") Instant now);
+
+    @Modifying
+    @Query("update AuthorStats s set s.recipeCount = s.recipeCount - 1, s.lastModified = :now "
+            + "where s.authorId = (select r.author.id from Recipe r where r.id = :recipeId)")
+    int decrementForRecipe(@Param("recipeId") Long recipeId, @Param("now") Instant now);
+
+    @Modifying
+    @Query("update AuthorStats s set s.recipeCount = s.recipeCount - "
+            + "(select count(r) from Recipe r where r.author.id = s.authorId and r.id in :recipeIds), "
+            + "s.lastModified = :now "
+            + "where s.authorId in (select r.author.id from Recipe r where r.id in :recipeIds)")
+    int decrementForRecipes(@Param("recipeIds") Collection<Long> recipeIds, @Param("now") Instant now);
+
+    @Modifying
+    @Query("update AuthorStats s set s.ingredientCount = s.ingredientCount - 1, s.lastModified = :now "
+            + "where s.authorId = (select r.author.id from Recipe r where r.id = :recipeId)")
+    int decrementIngredientsForRecipe(@Param("recipeId") Long recipeId, @Param("now") Instant now);
+
+    @Modifying
+    @Query("update AuthorStats s set s.lastModified = :now "
+            + "where s.authorId = (select r.author.id from Recipe r where r.id = :recipeId)")
+    int touchForRecipe(@Param("recipeId") Long recipeId, @Param("now") Instant now);
+
+    @Modifying
+    @Query("delete from AuthorStats s where s.authorId = :authorId")
+    int bulkDeleteByAuthorId(@Param("authorId") Long authorId);
+
+    // Row locks only; nothing is loaded into the persistence context
+    @Query(value = "select author_id from author_stats order by author_id for update", nativeQuery = true)
+    List<Long> lockAll();
+
+    @Modifying
+    @Query(value = "insert into author_stats (author_id, recipe_count, ingredient_count, last_modified) "
+            + "select a.id, 0, 0, :now from author a "
+            + "where not exists (select 1 from author_stats s where s.author_id = a.id)", nativeQuery = true)
+    int insertMissing(@Param("now") Instant now);
+
+    @Modifying
+    @Query(value = "delete from author_stats s where not exists (select 1 from author a where a.id = s.author_id)",
+            nativeQuery = true)
+    int deleteOrphaned();
+
+    @Modifying
+    @Query(value = "update author_stats s set "
+            + "recipe_count = (select count(*) from recipe r where r.author_id = s.author_id), "
+            + "ingredient_count = (select count(*) from ingredient i join recipe r on i.recipe_id = r.id "
+            + "where r.author_id = s.author_id)", nativeQuery = true)
+    int recount();
+}
@@ -0,0 +1,72 @@
+package com.rgs.recipeapi.repository;
+
+import com.rgs.recipeapi.dto.CoalescingStats;
+import com.rgs.recipeapi.entity.Ingredient;
+import com.rgs.recipeapi.entity.Recipe;
+import com.rgs.recipeapi.feed.EntityChange;
+import com.rgs.recipeapi.shard.ShardRouter;
+import com.rgs.recipeapi.shard.ShardTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Hot single-recipe reads behind a {@link SingleFlight} per query, so a burst of requests for the same recipe
+ * shares one database round trip. Committed writes detach in-flight loads for the rows they touched.
+ */
+@Component
+public class CoalescedReads {
+
+    private final RecipeRepository recipeRepository;
+    private final IngredientRepository ingredientRepository;
+    private final ShardTemplate shardTemplate;
+    private final ShardRouter shardRouter;
+    private final SingleFlight<Long, Optional<Recipe>> recipes = new SingleFlight<>();
+    private final SingleFlight<Long, Optional<List<Ingredient>>> ingredients = new SingleFlight<>();
+
+    public CoalescedReads(RecipeRepository recipeRepository,
+                          IngredientRepository ingredientRepository,
+                          ShardTemplate shardTemplate,
+                          ShardRouter shardRouter) {
+        this.recipeRepository = recipeRepository;
+        this.ingredientRepository = ingredientRepository;
+        this.shardTemplate = shardTemplate;
+        this.shardRouter = shardRouter;
+    }
+
+    public Optional<Recipe> findRecipe(Long id) {
+        return recipes.load(id, () -> shardTemplate.onShard(shardRouter.recipeShard(id),
+                () -> recipeRepository.findById(id)));
+    }
+
+    /**
+     * Ingredients of a recipe, or empty if the recipe does not exist.
+     */
+    public Optional<List<Ingredient>> findIngredients(Long recipeId) {
+        return ingredients.load(recipeId, () -> shardTemplate.onShard(shardRouter.recipeShard(recipeId),
+                () -> recipeRepository.existsById(recipeId)
+                        ? Optional.of(ingredientRepository.findByRecipeId(recipeId))
+                        : Optional.empty()));
+    }
+
+    public List<CoalescingStats> stats() {
+        return List.of(
+                new CoalescingStats("recipe", recipes.loads(), recipes.coalesced()),
+                new CoalescingStats("ingredients", ingredients.loads(), ingredients.coalesced()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(EntityChange change) {
+        if ("recipe".equals(change.entity())) {
+            recipes.forget(change.id());
+            ingredients.forget(change.id());
+        } else if ("ingredient".equals(change.entity())) {
+            ingredients.forget(change.parentId());
+        } else if ("author".equals(change.entity())) {
+            // Recipes embed their author, and which ones belong to it is not known here
+            recipes.forgetAll();
+        }
+    }
+}
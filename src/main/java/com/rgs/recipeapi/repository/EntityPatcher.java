@@ -0,0 +1,62 @@
+package com.rgs.recipeapi.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies a partial update as one UPDATE statement, without loading the entity first.
+ * Only the supplied attributes are written; the version is bumped and the expected version checked in the same WHERE
+ * clause, so a stale write simply matches no rows. Callers reject patches without a version or without changes
+ * before getting here.
+ */
+@Repository
+public class EntityPatcher {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * @param conditions extra equality checks, keyed by attribute path such as {@code recipe.id}
+     * @return the number of rows updated, 0 when the row is missing or the version did not match
+     * @throws IllegalArgumentException when no version or no change is given
+     */
+    @Transactional
+    public <T> int patch(Class<T> type, Long id, Long expectedVersion,
+                         Map<String, Object> changes, Map<String, Object> conditions) {
+        if (expectedVersion == null || changes.isEmpty()) {
+            throw new IllegalArgumentException("A patch needs an expected version and at least one change");
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<T> update = cb.createCriteriaUpdate(type);
+        Root<T> root = update.from(type);
+
+        changes.forEach(update::set);
+        Path<Long> version = root.get("version");
+        update.set(version, cb.sum(version, 1L));
+        update.set("updatedAt", Instant.now());
+
+        List<Predicate> where = new ArrayList<>();
+        where.add(cb.equal(root.get("id"), id));
+        where.add(cb.equal(version, expectedVersion));
+        conditions.forEach((attribute, value) -> where.add(cb.equal(AttributePaths.resolve(root, attribute), value)));
+        update.where(where.toArray(new Predicate[0]));
+
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    public <T> T reference(Class<T> type, Long id) {
+        return entityManager.getReference(type, id);
+    }
+}
@@ -0,0 +1,95 @@
+package com.rgs.recipeapi.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Reads only the requested attributes as a tuple query, so unrequested columns are neither fetched nor serialized.
+ */
+@Repository
+public class FieldProjector {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * @param fields output name to attribute path, in output order, e.g. {@code authorId -> author.id}
+     * @param conditions equality checks keyed by attribute path
+     */
+    @Transactional(readOnly = true)
+    public <T> List<Map<String, Object>> select(Class<T> type, Map<String, String> fields,
+                                                Map<String, Object> conditions) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(type);
+
+        List<Selection<?>> selections = new ArrayList<>();
+        fields.forEach((name, attribute) -> selections.add(AttributePaths.resolve(root, attribute).alias(name)));
+        query.select(cb.tuple(selections.toArray(new Selection<?>[0])));
+
+        List<Predicate> where = new ArrayList<>();
+        conditions.forEach((attribute, value) -> where.add(cb.equal(AttributePaths.resolve(root, attribute), value)));
+        query.where(where.toArray(new Predicate[0]));
+        query.orderBy(cb.asc(root.get("id")));
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Tuple tuple : entityManager.createQuery(query).getResultList()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String name : fields.keySet()) {
+                row.put(name, tuple.get(name));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Runs {@code select}, which may merge rows from several shards, and returns its rows sorted by id. The id is
+     * selected for sorting when it was not requested and dropped from the rows again afterwards.
+     */
+    public static List<Map<String, Object>> inIdOrder(Map<String, String> fields,
+                                                      Function<Map<String, String>, List<Map<String, Object>>> select) {
+        boolean requested = fields.containsKey("id");
+        Map<String, String> withId = fields;
+        if (!requested) {
+            withId = new LinkedHashMap<>(fields);
+            withId.put("id", "id");
+        }
+        List<Map<String, Object>> rows = select.apply(withId);
+        rows.sort(Comparator.comparing(row -> (Long) row.get("id")));
+        if (!requested) {
+            rows.forEach(row -> row.remove("id"));
+        }
+        return rows;
+    }
+
+    /**
+     * Maps requested field names to attribute paths, or returns {@code null} if any name is not in {@code allowed}.
+     */
+    public static Map<String, String> resolve(List<String> requested, Map<String, String> allowed) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (String name : requested) {
+            String attribute = allowed.get(name.trim());
+            if (attribute == null) {
+                return null;
+            }
+            fields.put(name.trim(), attribute);
+        }
+        return fields.isEmpty() ? null : fields;
+    }
+}
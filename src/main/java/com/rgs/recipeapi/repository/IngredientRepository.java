@@ -1,10 +1,49 @@
 package com.rgs.recipeapi.repository;
 
+import com.rgs.recipeapi.dto.IdTerm;
+import com.rgs.recipeapi.dto.IngredientNameRow;
+import com.rgs.recipeapi.dto.IngredientStatsRow;
 import com.rgs.recipeapi.entity.Ingredient;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 public interface IngredientRepository extends JpaRepository<Ingredient, Long> {
     List<Ingredient> findByRecipeId(Long recipeId);
+
+    long countByRecipeId(Long recipeId);
+
+    @Query("select i from Ingredient i where i.recipe.id in :recipeIds order by i.id")
+    List<Ingredient> findByRecipeIdIn(@Param("recipeIds") Collection<Long> recipeIds);
+
+    boolean existsByIdAndRecipeId(Long id, Long recipeId);
+
+    @Modifying
+    @Query("delete from Ingredient i where i.id = :id and i.recipe.id = :recipeId")
+    int bulkDeleteByIdAndRecipeId(@Param("id") Long id, @Param("recipeId") Long recipeId);
+
+    List<Ingredient> findByRecipeIdAndUpdatedAtGreaterThanEqual(Long recipeId, Instant since);
+
+    @Query("select new com.rgs.recipeapi.dto.IngredientStatsRow(i.id, i.name, i.unit) "
+            + "from Ingredient i where i.id > :afterId order by i.id")
+    List<IngredientStatsRow> findStatsRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select new com.rgs.recipeapi.dto.IngredientNameRow(i.id, i.recipe.id, i.name) "
+            + "from Ingredient i where i.id > :afterId order by i.id")
+    List<IngredientNameRow> findNameRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select i.name from Ingredient i where i.id = :id")
+    String findNameById(@Param("id") Long id);
+
+    @Query("select new com.rgs.recipeapi.dto.IdTerm(i.id, i.name) from Ingredient i where i.id > :afterId order by i.id")
+    List<IdTerm> findNamesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select i.name from Ingredient i where i.recipe.id = :recipeId")
+    List<String> findNamesByRecipeId(@Param("recipeId") Long recipeId);
 }
@@ -1,7 +1,70 @@
 package com.rgs.recipeapi.repository;
 
+import com.rgs.recipeapi.dto.IdTerm;
+import com.rgs.recipeapi.dto.RecipeStatsRow;
+import com.rgs.recipeapi.dto.RecipeSummary;
 import com.rgs.recipeapi.entity.Recipe;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 
 public interface RecipeRepository extends JpaRepository<Recipe, Long> {
+
+    List<Recipe> findByUpdatedAtGreaterThanEqual(Instant since);
+
+    @Query("select new com.rgs.recipeapi.dto.RecipeSummary(r.id, r.title, r.ingredientCount, a, r.version, "
+            + "r.updatedAt) from Recipe r left join r.author a order by r.id")
+    List<RecipeSummary> findAllSummaries();
+
+    // Keyset pages over idx_recipe_author_id: each page seeks to afterId instead of skipping earlier rows
+    @Query("select new com.rgs.recipeapi.dto.RecipeSummary(r.id, r.title, r.ingredientCount, a, r.version, "
+            + "r.updatedAt) from Recipe r join r.author a where a.id = :authorId and r.id > :afterId order by r.id")
+    List<RecipeSummary> findByAuthorId(@Param("authorId") Long authorId, @Param("afterId") Long afterId,
+                                       Pageable pageable);
+
+    @Query("select count(r) from Recipe r where r.author.id = :authorId")
+    long countByAuthorId(@Param("authorId") Long authorId);
+
+    @Query("select r.author.id from Recipe r where r.id = :id")
+    Long findAuthorIdById(@Param("id") Long id);
+
+    @Query("select r.title from Recipe r where r.id = :id")
+    String findTitleById(@Param("id") Long id);
+
+    @Query("select new com.rgs.recipeapi.dto.IdTerm(r.id, r.title) from Recipe r where r.id > :afterId order by r.id")
+    List<IdTerm> findTitlesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select r.id from Recipe r order by r.updatedAt desc, r.id desc")
+    List<Long> findRecentlyUpdatedIds(Pageable pageable);
+
+    @Query("select r from Recipe r left join fetch r.author where r.id in :ids")
+    List<Recipe> findWithAuthorByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Row locks only, in id order so concurrent batches cannot deadlock; nothing is loaded into the persistence context
+    @Query(value = "select id from recipe where id in :ids order by id for update", nativeQuery = true)
+    List<Long> lockExistingIds(@Param("ids") Collection<Long> ids);
+
+    // A bulk update leaves the version alone; concurrent ingredient writes queue on the recipe row. It skips
+    // @PreUpdate, so updatedAt is set here for ?modifiedSince= to see the new count
+    @Modifying
+    @Query("update Recipe r set r.ingredientCount = r.ingredientCount + :delta, r.updatedAt = :now where r.id = :id")
+    int adjustIngredientCount(@Param("id") Long id, @Param("delta") int delta, @Param("now") Instant now);
+
+    @Modifying
+    @Query("delete from Recipe r where r.id = :id")
+    int bulkDeleteById(@Param("id") Long id);
+
+    @Modifying
+    @Query("delete from Recipe r where r.id in :ids")
+    int bulkDeleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select new com.rgs.recipeapi.dto.RecipeStatsRow(r.id, a.id, a.name) "
+            + "from Recipe r left join r.author a where r.id > :afterId order by r.id")
+    List<RecipeStatsRow> findStatsRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
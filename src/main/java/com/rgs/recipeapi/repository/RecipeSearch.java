@@ -0,0 +1,79 @@
+package com.rgs.recipeapi.repository;
+
+import com.rgs.recipeapi.dto.RecipeFilter;
+import com.rgs.recipeapi.dto.RecipeSummary;
+import com.rgs.recipeapi.entity.Author;
+import com.rgs.recipeapi.entity.Ingredient;
+import com.rgs.recipeapi.entity.Recipe;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the filtered recipe listing as one criteria query holding only the conditions that were supplied, so every
+ * combination gets its own plan over the indexes on {@code recipe}: an author leads with {@code author_id}, a title
+ * prefix becomes a range scan on {@code title} and an ingredient count range one on {@code ingredientCount}. A unit
+ * is resolved to recipe ids through {@code idx_ingredient_unit_recipe_id} without reading the ingredient rows.
+ */
+@Repository
+public class RecipeSearch {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * @param sort attribute to order by, ties broken by id in the same direction
+     */
+    @Transactional(readOnly = true)
+    public List<RecipeSummary> find(RecipeFilter filter, String sort, boolean descending, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<RecipeSummary> query = cb.createQuery(RecipeSummary.class);
+        Root<Recipe> recipe = query.from(Recipe.class);
+        Join<Recipe, Author> author = recipe.join("author", JoinType.LEFT);
+        query.select(cb.construct(RecipeSummary.class, recipe.get("id"), recipe.get("title"),
+                recipe.get("ingredientCount"), author, recipe.get("version"), recipe.get("updatedAt")));
+
+        List<Predicate> where = new ArrayList<>();
+        if (filter.authorId() != null) {
+            where.add(cb.equal(recipe.get("author").get("id"), filter.authorId()));
+        }
+        if (filter.titlePrefix() != null) {
+            where.add(cb.like(recipe.get("title"), escapeLike(filter.titlePrefix()) + "%", '\\'));
+        }
+        if (filter.minIngredients() != null) {
+            where.add(cb.ge(recipe.get("ingredientCount"), filter.minIngredients()));
+        }
+        if (filter.maxIngredients() != null) {
+            where.add(cb.le(recipe.get("ingredientCount"), filter.maxIngredients()));
+        }
+        if (filter.unit() != null) {
+            Subquery<Long> withUnit = query.subquery(Long.class);
+            Root<Ingredient> ingredient = withUnit.from(Ingredient.class);
+            withUnit.select(ingredient.get("recipe").get("id"))
+                    .where(cb.equal(ingredient.get("unit"), filter.unit()));
+            where.add(recipe.get("id").in(withUnit));
+        }
+        query.where(where.toArray(new Predicate[0]));
+
+        Path<Object> id = recipe.get("id");
+        List<Path<Object>> keys = "id".equals(sort) ? List.of(id) : List.of(recipe.get(sort), id);
+        query.orderBy(keys.stream().map(key -> descending ? cb.desc(key) : cb.asc(key)).toList());
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
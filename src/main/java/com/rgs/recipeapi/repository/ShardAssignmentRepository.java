@@ -0,0 +1,10 @@
+package com.rgs.recipeapi.repository;
+
+import com.rgs.recipeapi.entity.ShardAssignment;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface ShardAssignmentRepository extends JpaRepository<ShardAssignment, Long> {
+    Optional<ShardAssignment> findByKindAndEntityId(String kind, Long entityId);
+}
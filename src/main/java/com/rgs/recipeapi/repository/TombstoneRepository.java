@@ -0,0 +1,27 @@
+package com.rgs.recipeapi.repository;
+
+import com.rgs.recipeapi.entity.Tombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface TombstoneRepository extends JpaRepository<Tombstone, Long> {
+
+    @Query("select t.entityId from Tombstone t where t.entity = :entity and t.parentId is null "
+            + "and t.deletedAt >= :since")
+    List<Long> findDeletedIdsSince(@Param("entity") String entity, @Param("since") Instant since);
+
+    @Query("select t.entityId from Tombstone t where t.entity = :entity and t.parentId = :parentId "
+            + "and t.deletedAt >= :since")
+    List<Long> findDeletedIdsSince(@Param("entity") String entity,
+                                   @Param("parentId") Long parentId,
+                                   @Param("since") Instant since);
+
+    @Modifying
+    @Query("delete from Tombstone t where t.deletedAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") Instant cutoff);
+}
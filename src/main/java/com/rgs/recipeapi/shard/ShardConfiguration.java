@@ -0,0 +1,31 @@
+package com.rgs.recipeapi.shard;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * With {@code recipe.shards.urls} set, replaces the single datasource with one pool per listed JDBC URL behind a
+ * {@link ShardRoutingDataSource}. The first URL is shard 0, which also holds rows written outside any shard.
+ */
+@Configuration
+public class ShardConfiguration {
+
+    @Bean
+    @ConditionalOnProperty("recipe.shards.urls")
+    public ShardRoutingDataSource dataSource(@Value("${recipe.shards.urls}") List<String> urls,
+                                             @Value("${spring.datasource.username:}") String username,
+                                             @Value("${spring.datasource.password:}") String password) {
+        List<DataSource> shards = new ArrayList<>();
+        for (String url : urls) {
+            shards.add(DataSourceBuilder.create().url(url.trim()).username(username).password(password).build());
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+}
@@ -0,0 +1,29 @@
+package com.rgs.recipeapi.shard;
+
+/**
+ * The shard the current thread's next connection should come from; {@code null} means the default shard 0.
+ */
+final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    static Integer get() {
+        return CURRENT.get();
+    }
+
+    static int current() {
+        Integer shard = CURRENT.get();
+        return shard == null ? 0 : shard;
+    }
+
+    static void set(Integer shard) {
+        if (shard == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(shard);
+        }
+    }
+}
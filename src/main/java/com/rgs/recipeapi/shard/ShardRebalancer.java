@@ -0,0 +1,207 @@
+package com.rgs.recipeapi.shard;
+
+import com.rgs.recipeapi.dto.ShardMove;
+import com.rgs.recipeapi.entity.AuthorMove;
+import com.rgs.recipeapi.repository.AuthorMoveRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves an author with its recipes, ingredients and counters to another shard, keeping every id.
+ * One transaction on the source locks and deletes the rows; inside it they are copied to the target and the routing
+ * overrides are recorded, and only then does it commit, so readers always find the author on one shard. Writes to
+ * the author wait for the move and then fail with a conflict rather than being lost; a write the move cannot lock
+ * out fails the move instead, before anything is copied.
+ * <p>
+ * The copy and the routing change commit before the source does, so each move is recorded on shard 0 with the
+ * step it has reached. A move that fails, or was cut short by a restart, is undone if the routing still points at
+ * the source and completed if it already points at the target; both steps can be repeated safely. Moves run one at
+ * a time, and an unfinished move found when another starts is taken to have failed, so moves should be started from
+ * one node.
+ */
+@Component
+public class ShardRebalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    private final ShardTemplate shardTemplate;
+    private final ShardRouter shardRouter;
+    private final AuthorMoveRepository moveRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Lock moving = new ReentrantLock();
+
+    public ShardRebalancer(ShardTemplate shardTemplate, ShardRouter shardRouter,
+                           AuthorMoveRepository moveRepository, DataSource dataSource) {
+        this.shardTemplate = shardTemplate;
+        this.shardRouter = shardRouter;
+        this.moveRepository = moveRepository;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    // Before readiness, so no request is routed while a move is half done
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void recoverMoves() {
+        if (shardTemplate.count() == 1) {
+            return;
+        }
+        for (AuthorMove move : shardTemplate.onShard(0, moveRepository::findAll)) {
+            log.warn("Recovering interrupted move of author {} from shard {} to {} at {}",
+                    move.getAuthorId(), move.getSource(), move.getTarget(), move.getPhase());
+            recover(move.getAuthorId());
+        }
+    }
+
+    /**
+     * @return the move, or empty if the author does not exist
+     * @throws IllegalArgumentException if {@code target} is not a shard
+     */
+    public Optional<ShardMove> moveAuthor(Long authorId, int target) {
+        if (target < 0 || target >= shardTemplate.count()) {
+            throw new IllegalArgumentException("No shard " + target);
+        }
+        moving.lock();
+        try {
+            recover(authorId);
+            int source = shardRouter.authorShard(authorId);
+            if (source != target) {
+                record(authorId, source, target);
+            }
+            Optional<ShardMove> move;
+            try {
+                move = shardTemplate.onShard(source, () -> copy(authorId, source, target));
+            } catch (RuntimeException e) {
+                recover(authorId);
+                throw e;
+            }
+            forget(authorId);
+            return move;
+        } finally {
+            moving.unlock();
+        }
+    }
+
+    private Optional<ShardMove> copy(Long authorId, int source, int target) {
+        lock(authorId);
+        Rows rows = read(authorId);
+        if (rows.authors().isEmpty()) {
+            return Optional.empty();
+        }
+        List<Long> recipeIds = new ArrayList<>();
+        rows.recipes().forEach(row -> recipeIds.add(((Number) row.get("ID")).longValue()));
+        ShardMove move = new ShardMove(authorId, source, target, rows.recipes().size(), rows.ingredients().size());
+        if (source == target) {
+            return Optional.of(move);
+        }
+        // Deleted first, so a write that cannot be locked out fails the move before the target is touched
+        delete(authorId);
+        shardTemplate.runOnShard(target, () -> {
+            // Left over from an earlier attempt that was undone
+            delete(authorId);
+            insert("author", rows.authors());
+            insert("author_stats", rows.stats());
+            insert("recipe", rows.recipes());
+            insert("ingredient", rows.ingredients());
+        });
+        shardTemplate.runOnShard(0, () -> {
+            shardRouter.reassign(authorId, recipeIds, target);
+            AuthorMove recorded = moveRepository.findById(authorId).orElseThrow();
+            recorded.setPhase(AuthorMove.Phase.REASSIGNED);
+            moveRepository.save(recorded);
+        });
+        return Optional.of(move);
+    }
+
+    /**
+     * Undoes or completes an unfinished move of the author. Before the routing changed, the source still holds the
+     * rows and any copy on the target is dropped; after it, any rows the source still holds are dropped.
+     */
+    void recover(Long authorId) {
+        Optional<AuthorMove> unfinished = shardTemplate.onShard(0, () -> moveRepository.findById(authorId));
+        if (unfinished.isEmpty()) {
+            return;
+        }
+        AuthorMove move = unfinished.get();
+        if (move.getPhase() == AuthorMove.Phase.COPYING) {
+            shardTemplate.runOnShard(move.getTarget(), () -> delete(authorId));
+        } else {
+            shardTemplate.runOnShard(move.getSource(), () -> delete(authorId));
+        }
+        forget(authorId);
+        // The routing change may have reached memory before its transaction rolled back
+        shardRouter.load();
+    }
+
+    private void record(Long authorId, int source, int target) {
+        AuthorMove move = new AuthorMove();
+        move.setAuthorId(authorId);
+        move.setSource(source);
+        move.setTarget(target);
+        move.setPhase(AuthorMove.Phase.COPYING);
+        shardTemplate.runOnShard(0, () -> moveRepository.save(move));
+    }
+
+    private void forget(Long authorId) {
+        shardTemplate.runOnShard(0, () -> moveRepository.deleteById(authorId));
+    }
+
+    // Same order as the request paths: recipes, then ingredients, then the author's counters
+    private void lock(Long authorId) {
+        jdbcTemplate.queryForList("SELECT id FROM recipe WHERE author_id = ? FOR UPDATE", authorId);
+        jdbcTemplate.queryForList("SELECT id FROM ingredient WHERE recipe_id IN "
+                + "(SELECT id FROM recipe WHERE author_id = ?) FOR UPDATE", authorId);
+        jdbcTemplate.queryForList("SELECT author_id FROM author_stats WHERE author_id = ? FOR UPDATE", authorId);
+        jdbcTemplate.queryForList("SELECT id FROM author WHERE id = ? FOR UPDATE", authorId);
+    }
+
+    private void delete(Long authorId) {
+        jdbcTemplate.update("DELETE FROM ingredient WHERE recipe_id IN (SELECT id FROM recipe WHERE author_id = ?)",
+                authorId);
+        jdbcTemplate.update("DELETE FROM recipe WHERE author_id = ?", authorId);
+        jdbcTemplate.update("DELETE FROM author_stats WHERE author_id = ?", authorId);
+        jdbcTemplate.update("DELETE FROM author WHERE id = ?", authorId);
+    }
+
+    private Rows read(Long authorId) {
+        return new Rows(
+                jdbcTemplate.queryForList("SELECT * FROM author WHERE id = ?", authorId),
+                jdbcTemplate.queryForList("SELECT * FROM author_stats WHERE author_id = ?", authorId),
+                jdbcTemplate.queryForList("SELECT * FROM recipe WHERE author_id = ? ORDER BY id", authorId),
+                jdbcTemplate.queryForList("SELECT i.* FROM ingredient i JOIN recipe r ON i.recipe_id = r.id "
+                        + "WHERE r.author_id = ? ORDER BY i.id", authorId));
+    }
+
+    private void insert(String table, List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<String> columns = new ArrayList<>(rows.getFirst().keySet());
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + String.join(", ", columns.stream().map(column -> "?").toList()) + ")";
+        List<Object[]> values = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            values.add(columns.stream().map(row::get).toArray());
+        }
+        jdbcTemplate.batchUpdate(sql, values);
+    }
+
+    private record Rows(List<Map<String, Object>> authors,
+                        List<Map<String, Object>> stats,
+                        List<Map<String, Object>> recipes,
+                        List<Map<String, Object>> ingredients) {
+    }
+}
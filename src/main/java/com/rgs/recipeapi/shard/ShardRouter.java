@@ -0,0 +1,156 @@
+package com.rgs.recipeapi.shard;
+
+import com.rgs.recipeapi.entity.ShardAssignment;
+import com.rgs.recipeapi.repository.ShardAssignmentRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decides which shard holds an author and, through the author, its recipes and ingredients.
+ * Each shard allocates ids from its own range ({@code shard << ID_SHARD_SHIFT}), so a row's id names the shard it was
+ * created on. Rows moved by {@link ShardRebalancer} keep their ids and are looked up in an override map that is
+ * persisted on shard 0. Each node reloads its copy of the map once it is older than
+ * {@code recipe.shards.routing-refresh-ms}, so a move made on another node is seen within that interval.
+ */
+@Component
+public class ShardRouter {
+
+    public static final int ID_SHARD_SHIFT = 40;
+
+    static final String AUTHOR = "author";
+    static final String RECIPE = "recipe";
+
+    private final ShardTemplate shardTemplate;
+    private final ShardAssignmentRepository assignmentRepository;
+    private final long refreshNanos;
+    private final Lock loading = new ReentrantLock();
+    private final AtomicInteger nextAuthorShard = new AtomicInteger();
+    private volatile Overrides overrides = new Overrides(Map.of(), Map.of(), 0);
+
+    public ShardRouter(ShardTemplate shardTemplate, ShardAssignmentRepository assignmentRepository,
+                       @Value("${recipe.shards.routing-refresh-ms:1000}") long refreshMs) {
+        this.shardTemplate = shardTemplate;
+        this.assignmentRepository = assignmentRepository;
+        this.refreshNanos = TimeUnit.MILLISECONDS.toNanos(refreshMs);
+    }
+
+    /**
+     * Replaces the overrides held in memory with those persisted on shard 0.
+     */
+    @PostConstruct
+    void load() {
+        if (shardTemplate.count() == 1) {
+            return;
+        }
+        loading.lock();
+        try {
+            long loadedAt = System.nanoTime();
+            Map<Long, Integer> authors = new HashMap<>();
+            Map<Long, Integer> recipes = new HashMap<>();
+            for (ShardAssignment assignment : shardTemplate.onShard(0, assignmentRepository::findAll)) {
+                (AUTHOR.equals(assignment.getKind()) ? authors : recipes)
+                        .put(assignment.getEntityId(), assignment.getShard());
+            }
+            overrides = new Overrides(authors, recipes, loadedAt);
+        } finally {
+            loading.unlock();
+        }
+    }
+
+    public int authorShard(Long authorId) {
+        Integer moved = authorId == null ? null : current().authors().get(authorId);
+        return moved != null ? moved : home(authorId);
+    }
+
+    public int recipeShard(Long recipeId) {
+        Integer moved = recipeId == null ? null : current().recipes().get(recipeId);
+        return moved != null ? moved : home(recipeId);
+    }
+
+    /**
+     * Shard for a new author, spreading authors round-robin.
+     */
+    public int placeAuthor() {
+        return Math.floorMod(nextAuthorShard.getAndIncrement(), shardTemplate.count());
+    }
+
+    public Map<Integer, List<Long>> recipesByShard(Collection<Long> recipeIds) {
+        Map<Long, Integer> moved = current().recipes();
+        Map<Integer, List<Long>> byShard = new TreeMap<>();
+        for (Long id : recipeIds) {
+            Integer shard = id == null ? null : moved.get(id);
+            byShard.computeIfAbsent(shard != null ? shard : home(id), key -> new ArrayList<>()).add(id);
+        }
+        return byShard;
+    }
+
+    void reassign(Long authorId, Collection<Long> recipeIds, int shard) {
+        shardTemplate.runOnShard(0, () -> {
+            save(AUTHOR, authorId, shard);
+            recipeIds.forEach(id -> save(RECIPE, id, shard));
+        });
+        loading.lock();
+        try {
+            Overrides loaded = overrides;
+            Map<Long, Integer> authors = new HashMap<>(loaded.authors());
+            Map<Long, Integer> recipes = new HashMap<>(loaded.recipes());
+            authors.put(authorId, shard);
+            recipeIds.forEach(id -> recipes.put(id, shard));
+            overrides = new Overrides(authors, recipes, loaded.loadedAt());
+        } finally {
+            loading.unlock();
+        }
+    }
+
+    /**
+     * The overrides, reloaded first when they are older than the refresh interval. One caller reloads while the
+     * others wait for it rather than each reading the table.
+     */
+    private Overrides current() {
+        Overrides loaded = overrides;
+        if (shardTemplate.count() == 1 || System.nanoTime() - loaded.loadedAt() < refreshNanos) {
+            return loaded;
+        }
+        loading.lock();
+        try {
+            if (overrides == loaded) {
+                load();
+            }
+            return overrides;
+        } finally {
+            loading.unlock();
+        }
+    }
+
+    private void save(String kind, Long id, int shard) {
+        ShardAssignment assignment = assignmentRepository.findByKindAndEntityId(kind, id)
+                .orElseGet(ShardAssignment::new);
+        assignment.setKind(kind);
+        assignment.setEntityId(id);
+        assignment.setShard(shard);
+        assignmentRepository.save(assignment);
+    }
+
+    private int home(Long id) {
+        if (id == null) {
+            return 0;
+        }
+        long shard = id >>> ID_SHARD_SHIFT;
+        return shard < shardTemplate.count() ? (int) shard : 0;
+    }
+
+    private record Overrides(Map<Long, Integer> authors, Map<Long, Integer> recipes, long loadedAt) {
+    }
+}
@@ -0,0 +1,38 @@
+package com.rgs.recipeapi.shard;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands out connections from the shard selected by {@link ShardTemplate} for the current thread, defaulting to
+ * shard 0. A connection is picked when a transaction begins, so the shard must be chosen before that.
+ */
+public final class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final int size;
+
+    // Resolved by the container through afterPropertiesSet, as for any routing datasource bean
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        this.size = shards.size();
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.getFirst());
+        setLenientFallback(false);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.get();
+    }
+}
@@ -0,0 +1,56 @@
+package com.rgs.recipeapi.shard;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.relational.SchemaManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Hibernate only generates the schema on shard 0. When it generates schemas at all ({@code ddl-auto=create...}),
+ * this exports the same schema to the other shards and starts their identity columns at the shard's id range.
+ * Shards managed by migrations need the same identity offsets.
+ */
+@Component
+public class ShardSchemaInitializer {
+
+    private static final List<String> SHARDED_TABLES = List.of("author", "recipe", "ingredient");
+
+    private final DataSource dataSource;
+    private final EntityManagerFactory entityManagerFactory;
+    private final boolean createSchema;
+
+    public ShardSchemaInitializer(DataSource dataSource,
+                                  EntityManagerFactory entityManagerFactory,
+                                  @Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto) {
+        this.dataSource = dataSource;
+        this.entityManagerFactory = entityManagerFactory;
+        this.createSchema = ddlAuto.startsWith("create");
+    }
+
+    @PostConstruct
+    void initialize() {
+        if (!(dataSource instanceof ShardRoutingDataSource routing) || !createSchema) {
+            return;
+        }
+        SchemaManager schemaManager = entityManagerFactory.unwrap(SessionFactory.class).getSchemaManager();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        for (int shard = 1; shard < routing.size(); shard++) {
+            ShardContext.set(shard);
+            try {
+                schemaManager.exportMappedObjects(true);
+                long firstId = ((long) shard << ShardRouter.ID_SHARD_SHIFT) + 1;
+                for (String table : SHARDED_TABLES) {
+                    jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + firstId);
+                }
+            } finally {
+                ShardContext.set(null);
+            }
+        }
+    }
+}
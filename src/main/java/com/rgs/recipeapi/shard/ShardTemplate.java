@@ -0,0 +1,130 @@
+package com.rgs.recipeapi.shard;
+
+import com.rgs.recipeapi.timing.RequestTiming;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Runs work against one shard, or against every shard in parallel and merges the results.
+ * Work on a shard runs in a transaction on that shard's connection: it joins the caller's transaction when that is
+ * already on the same shard and starts a separate one otherwise. With a single datasource there is one shard and
+ * everything joins the caller's transaction as before.
+ */
+@Component
+public class ShardTemplate {
+
+    private final int count;
+    private final TransactionTemplate required;
+    private final TransactionTemplate requiresNew;
+
+    public ShardTemplate(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.count = dataSource instanceof ShardRoutingDataSource routing ? routing.size() : 1;
+        this.required = new TransactionTemplate(transactionManager);
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public <T> T onShard(int shard, Supplier<T> work) {
+        if (count == 1) {
+            return required.execute(status -> work.get());
+        }
+        Integer previous = ShardContext.get();
+        boolean sameShard = TransactionSynchronizationManager.isActualTransactionActive()
+                && ShardContext.current() == shard;
+        ShardContext.set(shard);
+        try {
+            return (sameShard ? required : requiresNew).execute(status -> work.get());
+        } finally {
+            ShardContext.set(previous);
+        }
+    }
+
+    public void runOnShard(int shard, Runnable work) {
+        onShard(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs {@code query} on every shard at once and concatenates the results in shard order.
+     */
+    public <T> List<T> gather(Supplier<? extends List<T>> query) {
+        List<T> merged = new ArrayList<>();
+        for (List<T> part : perShard(shard -> query.get())) {
+            merged.addAll(part);
+        }
+        return merged;
+    }
+
+    public long sum(Supplier<Long> query) {
+        long total = 0;
+        for (Long part : perShard(shard -> query.get())) {
+            total += part;
+        }
+        return total;
+    }
+
+    /**
+     * Runs {@code work} on each shard in turn, for background jobs that would rather not hold a connection per shard.
+     */
+    public void forEachShard(Runnable work) {
+        for (int shard = 0; shard < count; shard++) {
+            runOnShard(shard, work);
+        }
+    }
+
+    /**
+     * Runs {@code query} on every shard at once, passing it the shard number, and returns the results in shard order.
+     * The statements run for the shards are added to the calling request's timing.
+     */
+    public <T> List<T> perShard(IntFunction<T> query) {
+        if (count == 1) {
+            return List.of(onShard(0, () -> query.apply(0)));
+        }
+        RequestTiming timing = RequestTiming.current();
+        List<RequestTiming.Branch> branches = new ArrayList<>(count);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<T>> parts = new ArrayList<>(count);
+            for (int shard = 0; shard < count; shard++) {
+                int current = shard;
+                RequestTiming.Branch branch = timing.branch();
+                branches.add(branch);
+                parts.add(executor.submit(() -> branch.run(() -> onShard(current, () -> query.apply(current)))));
+            }
+            List<T> results = new ArrayList<>(count);
+            for (Future<T> part : parts) {
+                results.add(part.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } finally {
+            timing.join(branches);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.rgs.recipeapi.timing;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Per-thread accumulator for the phases of the request being served on that thread. One instance is reused by every
+ * request the thread handles, and the recording methods only add to primitive fields, so instrumented code paths do
+ * not allocate. Outside a request the recording methods do nothing. Work the request hands to other threads is
+ * recorded through a {@link Branch} and added back with {@link #join}.
+ */
+public final class RequestTiming {
+
+    private static final ThreadLocal<RequestTiming> CURRENT = ThreadLocal.withInitial(RequestTiming::new);
+    private static final int MAX_RETAINED_BUFFER = 1024 * 1024;
+
+    private boolean active;
+    private long startNanos;
+    private long dbNanos;
+    private int statements;
+    private long flushNanos;
+    private long serializationNanos;
+
+    private long statementStart;
+    private long flushStart;
+    private long dbAtFlushStart;
+    // Allocated on first use, as branches never need them
+    private ByteArrayOutputStream buffer;
+    private StringBuilder header;
+
+    private RequestTiming() {
+    }
+
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    void start() {
+        active = true;
+        startNanos = System.nanoTime();
+        dbNanos = 0;
+        statements = 0;
+        flushNanos = 0;
+        serializationNanos = 0;
+    }
+
+    void stop() {
+        active = false;
+        if (buffer != null && buffer.size() > MAX_RETAINED_BUFFER) {
+            buffer = null;
+        }
+    }
+
+    /**
+     * A branch for work this request is about to run on another thread; outside a request the branch records nothing.
+     */
+    public Branch branch() {
+        return new Branch(active ? new RequestTiming() : null);
+    }
+
+    /**
+     * Adds the work of branches that have finished. Every statement counts, but as the branches ran at the same time
+     * only the longest db and flush times are added: the time this request waited for them.
+     */
+    public void join(List<Branch> branches) {
+        if (!active) {
+            return;
+        }
+        long db = 0;
+        long flush = 0;
+        for (Branch branch : branches) {
+            if (branch.timing != null) {
+                statements += branch.timing.statements;
+                db = Math.max(db, branch.timing.dbNanos);
+                flush = Math.max(flush, branch.timing.flushNanos);
+            }
+        }
+        dbNanos += db;
+        flushNanos += flush;
+    }
+
+    void statementStarted() {
+        if (active) {
+            statements++;
+            statementStart = System.nanoTime();
+        }
+    }
+
+    void statementEnded() {
+        if (active) {
+            dbNanos += System.nanoTime() - statementStart;
+        }
+    }
+
+    void flushStarted() {
+        if (active) {
+            flushStart = System.nanoTime();
+            dbAtFlushStart = dbNanos;
+        }
+    }
+
+    // The statements a flush issues are already counted as db time
+    void flushEnded() {
+        if (active) {
+            flushNanos += System.nanoTime() - flushStart - (dbNanos - dbAtFlushStart);
+        }
+    }
+
+    void serialized(long nanos) {
+        serializationNanos += nanos;
+    }
+
+    /**
+     * Reusable buffer for a response body that is serialized before it is written.
+     */
+    ByteArrayOutputStream buffer() {
+        if (buffer == null) {
+            buffer = new ByteArrayOutputStream(8192);
+        }
+        buffer.reset();
+        return buffer;
+    }
+
+    long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    long dbNanos() {
+        return dbNanos;
+    }
+
+    int statements() {
+        return statements;
+    }
+
+    long flushNanos() {
+        return flushNanos;
+    }
+
+    long serializationNanos() {
+        return serializationNanos;
+    }
+
+    /**
+     * Time not spent in JDBC, flushing or serialization: the handler and the framework around it.
+     */
+    long handlerNanos(long elapsedNanos) {
+        return Math.max(0, elapsedNanos - dbNanos - flushNanos - serializationNanos);
+    }
+
+    /**
+     * Formats the header value in the thread's reusable builder; the returned value is the only allocation.
+     */
+    String header() {
+        long elapsed = elapsedNanos();
+        if (header == null) {
+            header = new StringBuilder(160);
+        }
+        header.setLength(0);
+        appendMillis(header.append("db;dur="), dbNanos)
+                .append(";desc=\"").append(statements).append(" statements\", ");
+        appendMillis(header.append("flush;dur="), flushNanos).append(", ");
+        appendMillis(header.append("ser;dur="), serializationNanos).append(", ");
+        appendMillis(header.append("handler;dur="), handlerNanos(elapsed)).append(", ");
+        appendMillis(header.append("total;dur="), elapsed);
+        return header.toString();
+    }
+
+    static String millis(long nanos) {
+        return appendMillis(new StringBuilder(12), nanos).toString();
+    }
+
+    private static StringBuilder appendMillis(StringBuilder target, long nanos) {
+        long micros = nanos / 1000;
+        long fraction = micros % 1000;
+        return target.append(micros / 1000)
+                .append(fraction < 10 ? ".00" : fraction < 100 ? ".0" : ".")
+                .append(fraction);
+    }
+
+    /**
+     * The timing of work one request runs on another thread, to be passed to {@link #join} once the work is done.
+     */
+    public static final class Branch {
+
+        private final RequestTiming timing;
+
+        private Branch(RequestTiming timing) {
+            this.timing = timing;
+        }
+
+        /**
+         * Runs {@code work} on the calling thread, recording its statements into this branch.
+         */
+        public <T> T run(Supplier<T> work) {
+            if (timing == null) {
+                return work.get();
+            }
+            CURRENT.set(timing);
+            timing.start();
+            try {
+                return work.get();
+            } finally {
+                timing.stop();
+                CURRENT.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.rgs.recipeapi.timing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Adds a {@code Server-Timing} header to every response, splitting the time up to the moment the headers are
+ * committed into JDBC ({@code db}, with the statement count), Hibernate flush, JSON serialization ({@code ser})
+ * and everything else ({@code handler}). With {@code recipe.timing.log} set, the same figures are logged per request.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ServerTimingFilter.class);
+    static final String HEADER = "Server-Timing";
+
+    private final boolean logTimings;
+
+    public ServerTimingFilter(@Value("${recipe.timing.log:false}") boolean logTimings) {
+        this.logTimings = logTimings;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTiming timing = RequestTiming.current();
+        timing.start();
+        TimingResponse timed = new TimingResponse(response, timing);
+        try {
+            chain.doFilter(request, timed);
+        } finally {
+            timed.commitHeader();
+            if (logTimings) {
+                long elapsed = timing.elapsedNanos();
+                log.info("method={} uri={} status={} totalMs={} dbMs={} statements={} flushMs={} serMs={} handlerMs={}",
+                        request.getMethod(), request.getRequestURI(), response.getStatus(),
+                        RequestTiming.millis(elapsed), RequestTiming.millis(timing.dbNanos()), timing.statements(),
+                        RequestTiming.millis(timing.flushNanos()), RequestTiming.millis(timing.serializationNanos()),
+                        RequestTiming.millis(timing.handlerNanos(elapsed)));
+            }
+            timing.stop();
+        }
+    }
+
+    /**
+     * Sets the header just before anything can commit the response, so it reflects all work done before the body.
+     */
+    private static final class TimingResponse extends HttpServletResponseWrapper {
+
+        private RequestTiming timing;
+
+        TimingResponse(HttpServletResponse response, RequestTiming timing) {
+            super(response);
+            this.timing = timing;
+        }
+
+        // Also detaches the timing, since async responses (SSE) keep writing after the thread has moved on
+        void commitHeader() {
+            if (timing != null && !isCommitted()) {
+                setHeader(HEADER, timing.header());
+            }
+            timing = null;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            commitHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            commitHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            commitHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            commitHeader();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            commitHeader();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            commitHeader();
+            super.sendRedirect(location);
+        }
+    }
+}
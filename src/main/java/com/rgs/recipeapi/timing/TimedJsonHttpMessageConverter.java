@@ -0,0 +1,123 @@
+package com.rgs.recipeapi.timing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.JacksonJsonHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * JSON converter that, during a timed request, serializes into the thread's reusable buffer before writing, so
+ * serialization time is known before the response headers, including {@code Server-Timing}, are committed.
+ * Bodies larger than {@code recipe.timing.max-buffered-bytes} are streamed once they pass the limit instead of being
+ * held twice in memory; their header then only counts the serialization done before the limit was reached.
+ * Replaces the default Jackson converter.
+ */
+@Component
+public class TimedJsonHttpMessageConverter extends JacksonJsonHttpMessageConverter {
+
+    private final int maxBufferedBytes;
+
+    public TimedJsonHttpMessageConverter(JsonMapper jsonMapper,
+                                         @Value("${recipe.timing.max-buffered-bytes:262144}") int maxBufferedBytes) {
+        super(jsonMapper);
+        this.maxBufferedBytes = maxBufferedBytes;
+    }
+
+    @Override
+    protected void writeInternal(Object object, ResolvableType resolvableType, HttpOutputMessage outputMessage,
+                                 Map<String, Object> hints) throws IOException, HttpMessageNotWritableException {
+        RequestTiming timing = RequestTiming.current();
+        if (!timing.isActive()) {
+            super.writeInternal(object, resolvableType, outputMessage, hints);
+            return;
+        }
+        SpillingBuffer body = new SpillingBuffer(timing, maxBufferedBytes, outputMessage);
+        super.writeInternal(object, resolvableType, new HttpOutputMessage() {
+            @Override
+            public OutputStream getBody() {
+                return body;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return outputMessage.getHeaders();
+            }
+        }, hints);
+        body.finish();
+    }
+
+    /**
+     * Buffers up to {@code limit} bytes, then writes what it holds to the response and passes the rest straight
+     * through. Serialization time is recorded when the body is first written, which commits the headers.
+     */
+    private static final class SpillingBuffer extends OutputStream {
+
+        private final RequestTiming timing;
+        private final ByteArrayOutputStream buffer;
+        private final int limit;
+        private final HttpOutputMessage target;
+        private final long start = System.nanoTime();
+        private OutputStream out;
+
+        SpillingBuffer(RequestTiming timing, int limit, HttpOutputMessage target) {
+            this.timing = timing;
+            this.buffer = timing.buffer();
+            this.limit = limit;
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            spillIfOver(1);
+            if (out != null) {
+                out.write(b);
+            } else {
+                buffer.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            spillIfOver(length);
+            if (out != null) {
+                out.write(bytes, offset, length);
+            } else {
+                buffer.write(bytes, offset, length);
+            }
+        }
+
+        private void spillIfOver(int length) throws IOException {
+            if (out == null && buffer.size() + length > limit) {
+                spill();
+            }
+        }
+
+        private void spill() throws IOException {
+            timing.serialized(System.nanoTime() - start);
+            out = target.getBody();
+            buffer.writeTo(out);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (out != null) {
+                out.flush();
+            }
+        }
+
+        void finish() throws IOException {
+            if (out == null) {
+                spill();
+            }
+        }
+    }
+}
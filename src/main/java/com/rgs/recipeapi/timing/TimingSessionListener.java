@@ -0,0 +1,46 @@
+package com.rgs.recipeapi.timing;
+
+import org.hibernate.SessionEventListener;
+
+import java.io.Serial;
+
+/**
+ * Feeds Hibernate's JDBC and flush callbacks into the current {@link RequestTiming}. Registered for every session
+ * through {@code hibernate.session.events.auto}.
+ */
+public class TimingSessionListener implements SessionEventListener {
+
+    // Stateless, so any serialized form is interchangeable
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        RequestTiming.current().statementStarted();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestTiming.current().statementEnded();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        RequestTiming.current().statementStarted();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        RequestTiming.current().statementEnded();
+    }
+
+    @Override
+    public void flushStart() {
+        RequestTiming.current().flushStarted();
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        RequestTiming.current().flushEnded();
+    }
+}
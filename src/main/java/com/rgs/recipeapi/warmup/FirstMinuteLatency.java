@@ -0,0 +1,91 @@
+package com.rgs.recipeapi.warmup;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Records how long requests take during the first {@code recipe.warmup.report-window-ms} after the application starts
+ * accepting traffic, and logs their p99 when the window closes. Warm-up requests run before that and are not
+ * counted.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class FirstMinuteLatency extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(FirstMinuteLatency.class);
+
+    private final long windowNanos;
+    private final TaskScheduler scheduler;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final AtomicBoolean reported = new AtomicBoolean();
+    private volatile long openedAt;
+
+    public FirstMinuteLatency(@Value("${recipe.warmup.report-window-ms:60000}") long windowMs,
+                              TaskScheduler scheduler) {
+        this.windowNanos = windowMs * 1_000_000;
+        this.scheduler = scheduler;
+    }
+
+    @EventListener
+    public void onReadiness(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC && openedAt == 0) {
+            openedAt = System.nanoTime();
+            scheduler.schedule(this::report, scheduler.getClock().instant().plus(Duration.ofNanos(windowNanos)));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long opened = openedAt;
+        if (opened == 0 || reported.get()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (start - opened <= windowNanos) {
+                histogram.record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    void report() {
+        if (reported.compareAndSet(false, true)) {
+            log.info("First {} ms of traffic: {} requests, p99 {} ms",
+                    windowNanos / 1_000_000, histogram.count(), histogram.percentileMillis(0.99));
+        }
+    }
+
+    public long requests() {
+        return histogram.count();
+    }
+
+    public double p99Millis() {
+        return histogram.percentileMillis(0.99);
+    }
+
+    public boolean complete() {
+        long opened = openedAt;
+        return opened != 0 && System.nanoTime() - opened > windowNanos;
+    }
+}
@@ -0,0 +1,178 @@
+package com.rgs.recipeapi.warmup;
+
+import com.rgs.recipeapi.analytics.CatalogueSnapshotService;
+import com.rgs.recipeapi.dto.WarmUpStats;
+import com.rgs.recipeapi.repository.RecipeRepository;
+import com.rgs.recipeapi.shard.ShardTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Warms a freshly started node before it reports ready. Spring Boot only moves readiness to
+ * {@code ACCEPTING_TRAFFIC} after the {@link ApplicationReadyEvent} listeners return, so this listener runs last and
+ * holds readiness back while it opens {@code recipe.warmup.concurrency} connections per shard, builds the catalogue
+ * snapshot, and replays {@code recipe.warmup.requests} read requests, skewed towards the most recently updated
+ * recipes, against the embedded server over loopback. Nothing is preloaded for those recipes: the replay itself
+ * fills the caches and compiles the paths they are served through. Without an embedded server (mock web
+ * environments) the request replay is skipped.
+ */
+@Component
+public class WarmUp {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmUp.class);
+
+    private final ShardTemplate shardTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final RecipeRepository recipeRepository;
+    private final CatalogueSnapshotService snapshotService;
+    private final ApplicationAvailability availability;
+    private final FirstMinuteLatency firstMinute;
+    private final int requests;
+    private final int concurrency;
+    private final int hotRecipes;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile long warmUpMillis;
+
+    public WarmUp(ShardTemplate shardTemplate,
+                  JdbcTemplate jdbcTemplate,
+                  RecipeRepository recipeRepository,
+                  CatalogueSnapshotService snapshotService,
+                  ApplicationAvailability availability,
+                  FirstMinuteLatency firstMinute,
+                  @Value("${recipe.warmup.requests:2000}") int requests,
+                  @Value("${recipe.warmup.concurrency:8}") int concurrency,
+                  @Value("${recipe.warmup.hot-recipes:100}") int hotRecipes) {
+        this.shardTemplate = shardTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.recipeRepository = recipeRepository;
+        this.snapshotService = snapshotService;
+        this.availability = availability;
+        this.firstMinute = firstMinute;
+        this.requests = requests;
+        this.concurrency = Math.max(1, concurrency);
+        this.hotRecipes = Math.max(1, hotRecipes);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void warmUp(ApplicationReadyEvent event) {
+        if (requests <= 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        fillPool();
+        List<Long> hot = shardTemplate.gather(
+                () -> recipeRepository.findRecentlyUpdatedIds(PageRequest.ofSize(hotRecipes)));
+        snapshotService.refresh();
+        if (event.getApplicationContext() instanceof WebServerApplicationContext web && web.getWebServer() != null
+                && !hot.isEmpty()) {
+            replay(web.getWebServer().getPort(), hot);
+        }
+        warmUpMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("Warm-up took {} ms: {} requests ({} failed) across {} hot recipes",
+                warmUpMillis, sent.get(), failed.get(), hot.size());
+    }
+
+    public WarmUpStats stats() {
+        return new WarmUpStats(availability.getReadinessState().name(), warmUpMillis, sent.get(), failed.get(),
+                firstMinute.requests(), firstMinute.p99Millis(), firstMinute.complete());
+    }
+
+    // Holds every connection at once so the pool opens them all, giving up after a second if the pool is smaller
+    private void fillPool() {
+        for (int shard = 0; shard < shardTemplate.count(); shard++) {
+            int current = shard;
+            CountDownLatch held = new CountDownLatch(concurrency);
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < concurrency; i++) {
+                    executor.submit(() -> shardTemplate.runOnShard(current, () -> {
+                        jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+                        held.countDown();
+                        try {
+                            held.await(1, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }));
+                }
+            }
+        }
+    }
+
+    private void replay(int port, List<Long> hot) {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        String base = "http://localhost:" + port;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Runnable> workers = new ArrayList<>(concurrency);
+            for (int worker = 0; worker < concurrency; worker++) {
+                SplittableRandom random = new SplittableRandom(worker);
+                int share = requests / concurrency + (worker < requests % concurrency ? 1 : 0);
+                workers.add(() -> {
+                    for (int i = 0; i < share; i++) {
+                        send(client, base + path(random, hot));
+                    }
+                });
+            }
+            workers.forEach(executor::submit);
+        }
+    }
+
+    // Squaring a uniform draw makes the first (most recently updated) recipes the hottest
+    private static String path(SplittableRandom random, List<Long> hot) {
+        double u = random.nextDouble();
+        Long id = hot.get((int) (hot.size() * u * u));
+        int kind = random.nextInt(100);
+        if (kind < 50) {
+            return "/recipes/" + id;
+        } else if (kind < 75) {
+            return "/recipes/" + id + "/ingredients";
+        } else if (kind < 85) {
+            return "/recipes/" + id + "/similar";
+        } else if (kind < 95) {
+            return "/autocomplete?prefix=" + (char) ('a' + random.nextInt(26));
+        }
+        return "/stats";
+    }
+
+    private void send(HttpClient client, String url) {
+        sent.incrementAndGet();
+        try {
+            HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(url))
+                    .timeout(Duration.ofSeconds(30)).GET().build(), HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() >= 400) {
+                failed.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed.incrementAndGet();
+        } catch (Exception e) {
+            failed.incrementAndGet();
+        }
+    }
+}
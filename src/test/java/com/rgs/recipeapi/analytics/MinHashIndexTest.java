@@ -0,0 +1,59 @@
+package com.rgs.recipeapi.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MinHashIndexTest {
+
+    @Test
+    void shouldRankMoreSimilarIngredientSetsFirst() {
+        MinHashIndex index = new MinHashIndex(64, 16);
+        index.put(1L, List.of("flour", "sugar", "eggs", "butter"));
+        index.put(2L, List.of("Flour", "sugar", "eggs", "butter", "milk"));
+        index.put(3L, List.of("flour", "sugar", "eggs", "butter", "milk", "cocoa", "salt"));
+        index.put(4L, List.of("beef", "onion", "stock"));
+
+        assertThat(index.similar(1L, 10))
+                .extracting(similar -> similar.id())
+                .startsWith(2L)
+                .doesNotContain(1L, 4L);
+    }
+
+    @Test
+    void shouldDropRecipeAndItsMemoryOnRemove() {
+        MinHashIndex index = new MinHashIndex(64, 16);
+        index.put(1L, List.of("flour", "sugar"));
+        index.put(2L, List.of("flour", "sugar"));
+
+        index.remove(2L);
+
+        assertThat(index.contains(2L)).isFalse();
+        assertThat(index.similar(1L, 10)).isEmpty();
+        index.remove(1L);
+        assertThat(index.estimatedBytes()).isZero();
+    }
+
+    @Test
+    void shouldCapCandidatesScoredFromPopularBuckets() {
+        MinHashIndex index = new MinHashIndex(64, 16, 10);
+        for (long id = 1; id <= 50_000; id++) {
+            index.put(id, List.of("flour", "sugar", "eggs"));
+        }
+
+        assertThat(index.size()).isEqualTo(50_000);
+        assertThat(index.similar(1L, 100)).hasSizeLessThanOrEqualTo(10).doesNotContainNull();
+
+        index.remove(2L);
+        assertThat(index.similar(1L, 100)).extracting(similar -> similar.id()).doesNotContain(1L, 2L);
+    }
+
+    @Test
+    void shouldRejectBandsThatDoNotDivideHashes() {
+        assertThatThrownBy(() -> new MinHashIndex(64, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
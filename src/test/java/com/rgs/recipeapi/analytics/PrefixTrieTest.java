@@ -0,0 +1,59 @@
+package com.rgs.recipeapi.analytics;
+
+import com.rgs.recipeapi.dto.Suggestion;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrefixTrieTest {
+
+    @Test
+    void shouldRankCompletionsByCount() {
+        PrefixTrie trie = new PrefixTrie(3);
+        trie.adjust("Sugar", 1);
+        trie.adjust("salt", 5);
+        trie.adjust("saffron", 2);
+        trie.adjust("sage", 1);
+        trie.adjust("butter", 9);
+
+        assertThat(trie.complete("s", 10))
+                .extracting(Suggestion::text)
+                .containsExactly("salt", "saffron", "sage");
+        assertThat(trie.complete("SU", 10))
+                .extracting(Suggestion::text)
+                .containsExactly("Sugar");
+        assertThat(trie.complete("sa", 1))
+                .extracting(Suggestion::text)
+                .containsExactly("salt");
+        assertThat(trie.complete("x", 10)).isEmpty();
+    }
+
+    @Test
+    void shouldMatchPrefixEndingInsideAnEdge() {
+        PrefixTrie trie = new PrefixTrie(5);
+        trie.adjust("chocolate cake", 1);
+        trie.adjust("chocolate mousse", 1);
+
+        assertThat(trie.complete("choc", 10)).hasSize(2);
+        assertThat(trie.complete("chocolate m", 10))
+                .extracting(Suggestion::text)
+                .containsExactly("chocolate mousse");
+    }
+
+    @Test
+    void shouldDropTermsWhenCountReachesZero() {
+        PrefixTrie trie = new PrefixTrie(5);
+        trie.adjust("salt", 1);
+        trie.adjust("salted butter", 1);
+
+        trie.adjust("salt", -1);
+
+        assertThat(trie.size()).isEqualTo(1);
+        assertThat(trie.complete("sal", 10))
+                .extracting(Suggestion::text)
+                .containsExactly("salted butter");
+
+        trie.adjust("salted butter", -1);
+        assertThat(trie.complete("", 10)).isEmpty();
+    }
+}
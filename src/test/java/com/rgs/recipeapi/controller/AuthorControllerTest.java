@@ -1,6 +1,9 @@
 package com.rgs.recipeapi.controller;
 
+import com.rgs.recipeapi.analytics.AuthorStatsService;
 import com.rgs.recipeapi.entity.Author;
+import com.rgs.recipeapi.entity.Ingredient;
+import com.rgs.recipeapi.entity.Recipe;
 import com.rgs.recipeapi.repository.AuthorRepository;
 import com.rgs.recipeapi.repository.IngredientRepository;
 import com.rgs.recipeapi.repository.RecipeRepository;
@@ -13,6 +16,9 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -35,6 +41,9 @@ class AuthorControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private AuthorStatsService authorStatsService;
+
     @BeforeEach
     void setUp() {
         ingredientRepository.deleteAll();
@@ -101,4 +110,218 @@ class AuthorControllerTest {
         mockMvc.perform(delete("/authors/" + author.getId()))
                 .andExpect(status().isNoContent());
     }
+
+    @Test
+    void shouldReturnNotFoundWhenDeletingMissingAuthor() throws Exception {
+        mockMvc.perform(delete("/authors/999999"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldMaintainAuthorStatsOnWrites() throws Exception {
+        Author author = new Author();
+        author.setName("Escoffier");
+        String created = mockMvc.perform(post("/authors")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(author)))
+                .andReturn().getResponse().getContentAsString();
+        author = objectMapper.readValue(created, Author.class);
+
+        Recipe recipe = new Recipe();
+        recipe.setTitle("Peach Melba");
+        recipe.setAuthor(author);
+        created = mockMvc.perform(post("/recipes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(recipe)))
+                .andReturn().getResponse().getContentAsString();
+        recipe = objectMapper.readValue(created, Recipe.class);
+
+        Ingredient ingredient = new Ingredient();
+        ingredient.setName("Peaches");
+        ingredient.setQuantity(4.0f);
+        created = mockMvc.perform(post("/recipes/" + recipe.getId() + "/ingredients")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(ingredient)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        ingredient = objectMapper.readValue(created, Ingredient.class);
+
+        mockMvc.perform(get("/authors/" + author.getId() + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recipeCount").value(1))
+                .andExpect(jsonPath("$.ingredientCount").value(1))
+                .andExpect(jsonPath("$.lastModified").exists());
+
+        mockMvc.perform(delete("/recipes/" + recipe.getId() + "/ingredients/" + ingredient.getId()))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(delete("/recipes/" + recipe.getId()))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/authors/" + author.getId() + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recipeCount").value(0))
+                .andExpect(jsonPath("$.ingredientCount").value(0));
+    }
+
+    @Test
+    void shouldCountRecipeWhenAuthorIsAssignedOrRemoved() throws Exception {
+        Author author = new Author();
+        author.setName("Hannah Glasse");
+        String created = mockMvc.perform(post("/authors")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(author)))
+                .andReturn().getResponse().getContentAsString();
+        author = objectMapper.readValue(created, Author.class);
+
+        Recipe recipe = new Recipe();
+        recipe.setTitle("Syllabub");
+        created = mockMvc.perform(post("/recipes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(recipe)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        recipe = objectMapper.readValue(created, Recipe.class);
+
+        Ingredient ingredient = new Ingredient();
+        ingredient.setName("Cream");
+        mockMvc.perform(post("/recipes/" + recipe.getId() + "/ingredients")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(ingredient)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(patch("/recipes/" + recipe.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"authorId\":" + author.getId() + ",\"version\":" + recipe.getVersion() + "}"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/authors/" + author.getId() + "/stats"))
+                .andExpect(jsonPath("$.recipeCount").value(1))
+                .andExpect(jsonPath("$.ingredientCount").value(1));
+
+        mockMvc.perform(put("/recipes/" + recipe.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Syllabub\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/authors/" + author.getId() + "/stats"))
+                .andExpect(jsonPath("$.recipeCount").value(0))
+                .andExpect(jsonPath("$.ingredientCount").value(0));
+    }
+
+    @Test
+    void shouldTouchAuthorStatsOnPatches() throws Exception {
+        Author author = new Author();
+        author.setName("Isabella Beeton");
+        String created = mockMvc.perform(post("/authors")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(author)))
+                .andReturn().getResponse().getContentAsString();
+        author = objectMapper.readValue(created, Author.class);
+
+        Recipe recipe = new Recipe();
+        recipe.setTitle("Trifle");
+        recipe.setAuthor(author);
+        created = mockMvc.perform(post("/recipes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(recipe)))
+                .andReturn().getResponse().getContentAsString();
+        recipe = objectMapper.readValue(created, Recipe.class);
+
+        Ingredient ingredient = new Ingredient();
+        ingredient.setName("Sponge");
+        created = mockMvc.perform(post("/recipes/" + recipe.getId() + "/ingredients")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(ingredient)))
+                .andReturn().getResponse().getContentAsString();
+        ingredient = objectMapper.readValue(created, Ingredient.class);
+
+        Instant afterCreate = authorStatsService.findByAuthorId(author.getId()).orElseThrow().getLastModified();
+        Thread.sleep(5);
+        mockMvc.perform(patch("/recipes/" + recipe.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Sherry Trifle\",\"version\":" + recipe.getVersion() + "}"))
+                .andExpect(status().isNoContent());
+        Instant afterRecipePatch = authorStatsService.findByAuthorId(author.getId()).orElseThrow().getLastModified();
+        assertThat(afterRecipePatch).isAfter(afterCreate);
+
+        Thread.sleep(5);
+        mockMvc.perform(patch("/recipes/" + recipe.getId() + "/ingredients/" + ingredient.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\":2,\"version\":" + ingredient.getVersion() + "}"))
+                .andExpect(status().isNoContent());
+        assertThat(authorStatsService.findByAuthorId(author.getId()).orElseThrow().getLastModified())
+                .isAfter(afterRecipePatch);
+    }
+
+    @Test
+    void shouldReconcileAuthorStats() throws Exception {
+        Author author = new Author();
+        author.setName("Eliza Acton");
+        author = authorRepository.save(author);
+
+        Recipe recipe = new Recipe();
+        recipe.setTitle("Christmas Pudding");
+        recipe.setAuthor(author);
+        recipeRepository.save(recipe);
+
+        mockMvc.perform(get("/authors/" + author.getId() + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recipeCount").value(0));
+
+        authorStatsService.reconcile();
+
+        mockMvc.perform(get("/authors/" + author.getId() + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recipeCount").value(1));
+    }
+
+    @Test
+    void shouldReturnNotFoundForStatsOfMissingAuthor() throws Exception {
+        mockMvc.perform(get("/authors/999999/stats"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldPageThroughAuthorRecipesByKeyset() throws Exception {
+        Author author = new Author();
+        author.setName("Elizabeth David");
+        author = authorRepository.save(author);
+        Author other = new Author();
+        other.setName("Jane Grigson");
+        other = authorRepository.save(other);
+
+        Long[] ids = new Long[3];
+        for (int i = 0; i < 3; i++) {
+            Recipe recipe = new Recipe();
+            recipe.setTitle("Recipe " + i);
+            recipe.setInstructions("Long instructions");
+            recipe.setAuthor(author);
+            ids[i] = recipeRepository.save(recipe).getId();
+        }
+        Recipe unrelated = new Recipe();
+        unrelated.setTitle("Unrelated");
+        unrelated.setAuthor(other);
+        recipeRepository.save(unrelated);
+
+        mockMvc.perform(get("/authors/" + author.getId() + "/recipes").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].title").value("Recipe 0"))
+                .andExpect(jsonPath("$.items[0].instructions").doesNotExist())
+                .andExpect(jsonPath("$.next").value(ids[1]));
+
+        mockMvc.perform(get("/authors/" + author.getId() + "/recipes")
+                        .param("limit", "2").param("after", String.valueOf(ids[1])))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(ids[2]))
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+
+    @Test
+    void shouldRejectInvalidAuthorRecipePages() throws Exception {
+        mockMvc.perform(get("/authors/999999/recipes"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/authors/999999/recipes").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -0,0 +1,87 @@
+package com.rgs.recipeapi.controller;
+
+import com.rgs.recipeapi.entity.Author;
+import com.rgs.recipeapi.entity.Recipe;
+import com.rgs.recipeapi.repository.AuthorRepository;
+import com.rgs.recipeapi.repository.IngredientRepository;
+import com.rgs.recipeapi.repository.RecipeRepository;
+import tools.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AutocompleteControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private IngredientRepository ingredientRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Author testAuthor;
+
+    @BeforeEach
+    void setUp() {
+        ingredientRepository.deleteAll();
+        recipeRepository.deleteAll();
+        authorRepository.deleteAll();
+
+        testAuthor = new Author();
+        testAuthor.setName("Test Author");
+        testAuthor = authorRepository.save(testAuthor);
+    }
+
+    @Test
+    void shouldSuggestTitlesWrittenThroughController() throws Exception {
+        Recipe recipe = new Recipe();
+        recipe.setTitle("Zabaglione");
+        recipe.setAuthor(testAuthor);
+
+        String created = mockMvc.perform(post("/recipes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(recipe)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        recipe = objectMapper.readValue(created, Recipe.class);
+
+        mockMvc.perform(get("/autocomplete").param("prefix", "zab").param("type", "recipe"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].text").value("Zabaglione"));
+
+        mockMvc.perform(patch("/recipes/" + recipe.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Zuppa Inglese\",\"version\":" + recipe.getVersion() + "}"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/autocomplete").param("prefix", "zab"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+        mockMvc.perform(get("/autocomplete").param("prefix", "zu"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].text").value("Zuppa Inglese"));
+    }
+
+    @Test
+    void shouldRejectUnknownType() throws Exception {
+        mockMvc.perform(get("/autocomplete").param("prefix", "a").param("type", "author"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,78 @@
+package com.rgs.recipeapi.controller;
+
+import com.rgs.recipeapi.entity.Author;
+import com.rgs.recipeapi.feed.ChangeFeed;
+import tools.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ChangeControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void shouldReplayChangesAfterLastEventId() throws Exception {
+        long before = changeFeed.lastSeq();
+
+        Author author = new Author();
+        author.setName("Marcella Hazan");
+        mockMvc.perform(post("/authors")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(author)))
+                .andExpect(status().isCreated());
+
+        MockHttpServletResponse response = mockMvc.perform(get("/changes")
+                        .header("Last-Event-ID", before))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        // The id, event and data lines of an event are written separately, so wait for the data
+        while (!response.getContentAsString().contains("\"action\":\"CREATED\"")
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(response.getContentAsString())
+                .contains("id:" + (before + 1))
+                .contains("event:author")
+                .contains("\"action\":\"CREATED\"");
+    }
+
+    @Test
+    void shouldResetCursorWhenLastEventIdIsAheadOfTheFeed() throws Exception {
+        long ahead = changeFeed.lastSeq() + 1000;
+
+        MockHttpServletResponse response = mockMvc.perform(get("/changes")
+                        .header("Last-Event-ID", ahead))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!response.getContentAsString().contains("data:") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(response.getContentAsString())
+                .contains("event:reset")
+                .doesNotContain("id:" + ahead);
+    }
+}
@@ -15,6 +15,8 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Instant;
+
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -101,6 +103,26 @@ class IngredientControllerTest {
                 .andExpect(jsonPath("$.quantity").value(2.0));
     }
 
+    @Test
+    void shouldPatchIngredientQuantity() throws Exception {
+        Ingredient ingredient = new Ingredient();
+        ingredient.setName("Butter");
+        ingredient.setQuantity(1.0f);
+        ingredient.setUnit("stick");
+        ingredient.setRecipe(testRecipe);
+        ingredient = ingredientRepository.save(ingredient);
+
+        mockMvc.perform(patch("/recipes/" + testRecipe.getId() + "/ingredients/" + ingredient.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\":3.0,\"version\":" + ingredient.getVersion() + "}"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/recipes/" + testRecipe.getId() + "/ingredients"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Butter"))
+                .andExpect(jsonPath("$[0].quantity").value(3.0));
+    }
+
     @Test
     void shouldDeleteIngredient() throws Exception {
         Ingredient ingredient = new Ingredient();
@@ -114,6 +136,52 @@ class IngredientControllerTest {
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    void shouldKeepRecipeIngredientCountWithoutBumpingItsVersion() throws Exception {
+        Ingredient ingredient = new Ingredient();
+        ingredient.setName("Egg");
+        ingredient.setUnit("pcs");
+        String path = "/recipes/" + testRecipe.getId() + "/ingredients";
+
+        mockMvc.perform(post(path).contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(ingredient)))
+                .andExpect(status().isCreated());
+        String created = mockMvc.perform(post(path).contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(ingredient)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Long ingredientId = objectMapper.readValue(created, Ingredient.class).getId();
+        mockMvc.perform(delete(path + "/" + ingredientId))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(delete(path + "/" + ingredientId))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/recipes/" + testRecipe.getId()))
+                .andExpect(jsonPath("$.ingredientCount").value(1))
+                .andExpect(jsonPath("$.version").value(testRecipe.getVersion()));
+    }
+
+    @Test
+    void shouldReportRecipeAsModifiedWhenIngredientsChange() throws Exception {
+        Thread.sleep(10);
+        Instant since = Instant.now();
+        Thread.sleep(10);
+        Ingredient ingredient = new Ingredient();
+        ingredient.setName("Salt");
+        ingredient.setUnit("g");
+
+        mockMvc.perform(post("/recipes/" + testRecipe.getId() + "/ingredients")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(ingredient)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/recipes").param("modifiedSince", since.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(testRecipe.getId()))
+                .andExpect(jsonPath("$.items[0].ingredientCount").value(1));
+    }
+
     @Test
     void shouldAllowNegativeQuantityOnCreate() throws Exception {
         // INTENTIONAL BUG: Negative quantities are accepted
@@ -1,6 +1,8 @@
 package com.rgs.recipeapi.controller;
 
+import com.rgs.recipeapi.analytics.SimilarityService;
 import com.rgs.recipeapi.entity.Author;
+import com.rgs.recipeapi.entity.Ingredient;
 import com.rgs.recipeapi.entity.Recipe;
 import com.rgs.recipeapi.repository.AuthorRepository;
 import com.rgs.recipeapi.repository.IngredientRepository;
@@ -14,6 +16,11 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -36,6 +43,9 @@ class RecipeControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private SimilarityService similarityService;
+
     private Author testAuthor;
 
     @BeforeEach
@@ -64,6 +74,15 @@ class RecipeControllerTest {
                 .andExpect(jsonPath("$.title").value("Chocolate Cake"));
     }
 
+    @Test
+    void shouldCreateRecipeWithoutAuthor() throws Exception {
+        mockMvc.perform(post("/recipes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Anonymous Stew\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.author").doesNotExist());
+    }
+
     @Test
     void shouldGetAllRecipes() throws Exception {
         Recipe recipe = new Recipe();
@@ -76,6 +95,28 @@ class RecipeControllerTest {
                 .andExpect(jsonPath("$[0].title").value("Apple Pie"));
     }
 
+    @Test
+    void shouldLeaveRecipeTextOutOfListings() throws Exception {
+        Recipe recipe = new Recipe();
+        recipe.setTitle("Apple Pie");
+        recipe.setDescription("Classic pie");
+        recipe.setInstructions("Bake until golden.");
+        recipe.setAuthor(testAuthor);
+        recipe = recipeRepository.save(recipe);
+
+        mockMvc.perform(get("/recipes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("Apple Pie"))
+                .andExpect(jsonPath("$[0].author.name").value("Test Author"))
+                .andExpect(jsonPath("$[0].description").doesNotExist())
+                .andExpect(jsonPath("$[0].instructions").doesNotExist());
+
+        mockMvc.perform(get("/recipes/" + recipe.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.description").value("Classic pie"))
+                .andExpect(jsonPath("$.instructions").value("Bake until golden."));
+    }
+
     @Test
     void shouldGetRecipeById() throws Exception {
         Recipe recipe = new Recipe();
@@ -114,4 +155,405 @@ class RecipeControllerTest {
         mockMvc.perform(delete("/recipes/" + recipe.getId()))
                 .andExpect(status().isNoContent());
     }
+
+    @Test
+    void shouldReturnOnlyRecipesChangedSinceWatermark() throws Exception {
+        Recipe unchanged = new Recipe();
+        unchanged.setTitle("Unchanged");
+        unchanged.setAuthor(testAuthor);
+        recipeRepository.save(unchanged);
+
+        Recipe deleted = new Recipe();
+        deleted.setTitle("Deleted");
+        deleted.setAuthor(testAuthor);
+        deleted = recipeRepository.save(deleted);
+
+        Thread.sleep(10);
+        Instant since = Instant.now();
+        Thread.sleep(10);
+
+        Recipe changed = new Recipe();
+        changed.setTitle("Changed");
+        changed.setAuthor(testAuthor);
+        recipeRepository.save(changed);
+        mockMvc.perform(delete("/recipes/" + deleted.getId()))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/recipes").param("modifiedSince", since.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].title").value("Changed"))
+                .andExpect(jsonPath("$.deleted[0]").value(deleted.getId()))
+                .andExpect(jsonPath("$.watermark").exists());
+    }
+
+    @Test
+    void shouldPatchOnlySuppliedFields() throws Exception {
+        Recipe recipe = new Recipe();
+        recipe.setTitle("Old Title");
+        recipe.setInstructions("Keep these instructions.");
+        recipe.setAuthor(testAuthor);
+        recipe = recipeRepository.save(recipe);
+
+        mockMvc.perform(patch("/recipes/" + recipe.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"New Title\",\"version\":" + recipe.getVersion() + "}"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/recipes/" + recipe.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("New Title"))
+                .andExpect(jsonPath("$.instructions").value("Keep these instructions."))
+                .andExpect(jsonPath("$.version").value(recipe.getVersion() + 1));
+    }
+
+    @Test
+    void shouldRejectPatchWithStaleVersion() throws Exception {
+        Recipe recipe = new Recipe();
+        recipe.setTitle("Contested");
+        recipe.setAuthor(testAuthor);
+        recipe = recipeRepository.save(recipe);
+        String body = "{\"title\":\"First\",\"version\":" + recipe.getVersion() + "}";
+
+        mockMvc.perform(patch("/recipes/" + recipe.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(patch("/recipes/" + recipe.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isConflict());
+        mockMvc.perform(patch("/recipes/999999")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldRejectPatchWithoutVersionOrChanges() throws Exception {
+        Recipe recipe = new Recipe();
+        recipe.setTitle("Unversioned");
+        recipe.setAuthor(testAuthor);
+        recipe = recipeRepository.save(recipe);
+
+        mockMvc.perform(patch("/recipes/" + recipe.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Last Write Wins\"}"))
+                .andExpect(status().isPreconditionRequired());
+        mockMvc.perform(patch("/recipes/" + recipe.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"version\":" + recipe.getVersion() + "}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/authors/" + testAuthor.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Nobody\"}"))
+                .andExpect(status().isPreconditionRequired());
+
+        mockMvc.perform(get("/recipes/" + recipe.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Unversioned"))
+                .andExpect(jsonPath("$.version").value(recipe.getVersion()));
+    }
+
+    @Test
+    void shouldRejectPatchToUnknownAuthor() throws Exception {
+        Recipe recipe = new Recipe();
+        recipe.setTitle("Orphan");
+        recipe.setAuthor(testAuthor);
+        recipe = recipeRepository.save(recipe);
+
+        mockMvc.perform(patch("/recipes/" + recipe.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"authorId\":999999,\"version\":" + recipe.getVersion() + "}"))
+                .andExpect(status().isBadRequest());
+        assertThat(recipeRepository.findAuthorIdById(recipe.getId())).isEqualTo(testAuthor.getId());
+    }
+
+    @Test
+    void shouldRejectPutWithStaleVersion() throws Exception {
+        Recipe recipe = new Recipe();
+        recipe.setTitle("Original");
+        recipe.setAuthor(testAuthor);
+        recipe = recipeRepository.save(recipe);
+
+        recipe.setTitle("Stale");
+        recipe.setVersion(recipe.getVersion() - 1);
+
+        mockMvc.perform(put("/recipes/" + recipe.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(recipe)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void shouldReturnNotFoundWhenDeletingMissingRecipe() throws Exception {
+        mockMvc.perform(delete("/recipes/999999"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldDeleteRecipesInBatch() throws Exception {
+        Recipe first = new Recipe();
+        first.setTitle("First");
+        first.setAuthor(testAuthor);
+        first = recipeRepository.save(first);
+
+        Recipe second = new Recipe();
+        second.setTitle("Second");
+        second.setAuthor(testAuthor);
+        second = recipeRepository.save(second);
+
+        mockMvc.perform(delete("/recipes").param("ids", first.getId() + "," + second.getId() + ",999999"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted.length()").value(2))
+                .andExpect(jsonPath("$.missing[0]").value(999999));
+
+        assertThat(recipeRepository.count()).isZero();
+    }
+
+    @Test
+    void shouldGetRecipesByIdsInRequestOrder() throws Exception {
+        Recipe first = new Recipe();
+        first.setTitle("First");
+        first.setAuthor(testAuthor);
+        first = recipeRepository.save(first);
+
+        Recipe second = new Recipe();
+        second.setTitle("Second");
+        second.setAuthor(testAuthor);
+        second = recipeRepository.save(second);
+
+        Ingredient ingredient = new Ingredient();
+        ingredient.setName("Sugar");
+        ingredient.setRecipe(second);
+        ingredientRepository.save(ingredient);
+
+        String ids = second.getId() + ",999999," + first.getId();
+        mockMvc.perform(get("/recipes").param("ids", ids))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recipes[0].title").value("Second"))
+                .andExpect(jsonPath("$.recipes[1].title").value("First"))
+                .andExpect(jsonPath("$.recipes[0].author.name").value("Test Author"))
+                .andExpect(jsonPath("$.ingredients").doesNotExist())
+                .andExpect(jsonPath("$.missing[0]").value(999999))
+                .andExpect(header().string("Server-Timing", containsString("desc=\"1 statements\"")));
+
+        mockMvc.perform(get("/recipes").param("ids", ids).param("include", "ingredients"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ingredients['" + second.getId() + "'][0].name").value("Sugar"))
+                .andExpect(jsonPath("$.ingredients['" + first.getId() + "']").isEmpty())
+                .andExpect(header().string("Server-Timing", containsString("desc=\"2 statements\"")));
+
+        mockMvc.perform(get("/recipes").param("ids", ids).param("include", "steps"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldFilterAndSortRecipes() throws Exception {
+        Author other = new Author();
+        other.setName("Other Author");
+        other = authorRepository.save(other);
+
+        Recipe applePie = saveRecipe("Apple Pie", testAuthor);
+        Recipe appleTart = saveRecipe("Apple Tart", testAuthor);
+        Recipe banana = saveRecipe("Banana Bread", testAuthor);
+        Recipe appleCrumble = saveRecipe("Apple Crumble", other);
+        saveRecipe("Apple_Cake", testAuthor);
+        postIngredients(applePie, "g", 3);
+        postIngredients(appleTart, "tbsp", 1);
+        postIngredients(banana, "g", 2);
+        postIngredients(appleCrumble, "tbsp", 4);
+
+        mockMvc.perform(get("/recipes").param("authorId", testAuthor.getId().toString())
+                        .param("sort", "ingredientCount,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(4))
+                .andExpect(jsonPath("$[0].title").value("Apple Pie"))
+                .andExpect(jsonPath("$[0].ingredientCount").value(3))
+                .andExpect(jsonPath("$[1].title").value("Banana Bread"))
+                .andExpect(jsonPath("$[2].title").value("Apple Tart"))
+                .andExpect(jsonPath("$[3].title").value("Apple_Cake"));
+
+        mockMvc.perform(get("/recipes").param("titlePrefix", "Apple ").param("sort", "title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].title").value("Apple Crumble"))
+                .andExpect(jsonPath("$[1].title").value("Apple Pie"))
+                .andExpect(jsonPath("$[2].title").value("Apple Tart"));
+
+        // LIKE wildcards in the prefix match literally
+        mockMvc.perform(get("/recipes").param("titlePrefix", "Apple_"))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].title").value("Apple_Cake"));
+
+        mockMvc.perform(get("/recipes").param("minIngredients", "2").param("maxIngredients", "3")
+                        .param("sort", "ingredientCount"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].title").value("Banana Bread"))
+                .andExpect(jsonPath("$[1].title").value("Apple Pie"));
+
+        mockMvc.perform(get("/recipes").param("unit", "tbsp").param("titlePrefix", "Apple")
+                        .param("authorId", testAuthor.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].title").value("Apple Tart"))
+                .andExpect(header().string("Server-Timing", containsString("desc=\"1 statements\"")));
+
+        mockMvc.perform(get("/recipes").param("sort", "title,desc").param("limit", "2"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].title").value("Banana Bread"))
+                .andExpect(jsonPath("$[1].title").value("Apple_Cake"));
+    }
+
+    @Test
+    void shouldRejectUnknownSortOrBadLimit() throws Exception {
+        mockMvc.perform(get("/recipes").param("sort", "description"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/recipes").param("sort", "title,sideways"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/recipes").param("unit", "g").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/recipes").param("limit", "1001"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldReturnOnlyRequestedFields() throws Exception {
+        Recipe recipe = new Recipe();
+        recipe.setTitle("Pavlova");
+        recipe.setDescription("Meringue dessert");
+        recipe.setInstructions("Whisk and bake.");
+        recipe.setAuthor(testAuthor);
+        recipe = recipeRepository.save(recipe);
+
+        mockMvc.perform(get("/recipes").param("fields", "id,title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(recipe.getId()))
+                .andExpect(jsonPath("$[0].title").value("Pavlova"))
+                .andExpect(jsonPath("$[0].description").doesNotExist())
+                .andExpect(jsonPath("$[0].instructions").doesNotExist())
+                .andExpect(jsonPath("$[0].author").doesNotExist());
+
+        mockMvc.perform(get("/recipes/" + recipe.getId()).param("fields", "title,authorId"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Pavlova"))
+                .andExpect(jsonPath("$.authorId").value(testAuthor.getId()))
+                .andExpect(jsonPath("$.id").doesNotExist());
+    }
+
+    @Test
+    void shouldRejectUnknownFields() throws Exception {
+        mockMvc.perform(get("/recipes").param("fields", "id,secret"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldRejectFieldsCombinedWithModifiedSince() throws Exception {
+        Recipe recipe = new Recipe();
+        recipe.setTitle("Combined");
+        recipe.setAuthor(testAuthor);
+        recipe = recipeRepository.save(recipe);
+        String since = Instant.now().toString();
+
+        mockMvc.perform(get("/recipes").param("fields", "id").param("modifiedSince", since))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/authors").param("fields", "id").param("modifiedSince", since))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/recipes/" + recipe.getId() + "/ingredients")
+                        .param("fields", "id").param("modifiedSince", since))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldRejectFieldsCombinedWithListingParameters() throws Exception {
+        mockMvc.perform(get("/recipes").param("fields", "id").param("authorId", testAuthor.getId().toString()))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/recipes").param("fields", "id").param("sort", "title"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/recipes").param("fields", "id").param("limit", "5"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldRejectIdsCombinedWithFieldsModifiedSinceOrListingParams() throws Exception {
+        Recipe recipe = new Recipe();
+        recipe.setTitle("Batched");
+        recipe.setAuthor(testAuthor);
+        recipe = recipeRepository.save(recipe);
+
+        mockMvc.perform(get("/recipes").param("ids", recipe.getId().toString()).param("fields", "id"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/recipes").param("ids", recipe.getId().toString())
+                        .param("modifiedSince", Instant.now().toString()))
+                .andExpect(status().isBadRequest());
+        Map<String, String> listing = Map.of("authorId", testAuthor.getId().toString(), "titlePrefix", "Bat",
+                "minIngredients", "0", "maxIngredients", "5", "unit", "g", "sort", "title", "limit", "5");
+        for (Map.Entry<String, String> param : listing.entrySet()) {
+            mockMvc.perform(get("/recipes").param("ids", recipe.getId().toString())
+                            .param(param.getKey(), param.getValue()))
+                    .andExpect(status().isBadRequest());
+        }
+        mockMvc.perform(get("/recipes").param("ids", recipe.getId().toString()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldFindSimilarRecipesByIngredients() throws Exception {
+        Recipe sponge = saveRecipeWithIngredients("Sponge", "flour", "sugar", "eggs", "butter");
+        saveRecipeWithIngredients("Stew", "beef", "onion", "stock");
+        similarityService.rebuild();
+
+        Recipe cupcakes = new Recipe();
+        cupcakes.setTitle("Cupcakes");
+        cupcakes.setAuthor(testAuthor);
+        cupcakes = recipeRepository.save(cupcakes);
+        for (String name : new String[]{"flour", "sugar", "eggs", "butter", "milk"}) {
+            Ingredient ingredient = new Ingredient();
+            ingredient.setName(name);
+            mockMvc.perform(post("/recipes/" + cupcakes.getId() + "/ingredients")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(ingredient)))
+                    .andExpect(status().isCreated());
+        }
+
+        mockMvc.perform(get("/recipes/" + cupcakes.getId() + "/similar").param("k", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(sponge.getId()));
+        mockMvc.perform(get("/recipes/999999/similar"))
+                .andExpect(status().isNotFound());
+    }
+
+    private Recipe saveRecipe(String title, Author author) {
+        Recipe recipe = new Recipe();
+        recipe.setTitle(title);
+        recipe.setAuthor(author);
+        return recipeRepository.save(recipe);
+    }
+
+    private void postIngredients(Recipe recipe, String unit, int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            Ingredient ingredient = new Ingredient();
+            ingredient.setName("Ingredient " + i);
+            ingredient.setUnit(unit);
+            mockMvc.perform(post("/recipes/" + recipe.getId() + "/ingredients")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(ingredient)))
+                    .andExpect(status().isCreated());
+        }
+    }
+
+    private Recipe saveRecipeWithIngredients(String title, String... ingredientNames) {
+        Recipe recipe = new Recipe();
+        recipe.setTitle(title);
+        recipe.setAuthor(testAuthor);
+        recipe = recipeRepository.save(recipe);
+        for (String name : ingredientNames) {
+            Ingredient ingredient = new Ingredient();
+            ingredient.setName(name);
+            ingredient.setRecipe(recipe);
+            ingredientRepository.save(ingredient);
+        }
+        return recipe;
+    }
 }
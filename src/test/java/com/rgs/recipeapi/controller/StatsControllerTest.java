@@ -0,0 +1,141 @@
+package com.rgs.recipeapi.controller;
+
+import com.rgs.recipeapi.analytics.CatalogueSnapshotService;
+import com.rgs.recipeapi.entity.Author;
+import com.rgs.recipeapi.entity.Ingredient;
+import com.rgs.recipeapi.entity.Recipe;
+import com.rgs.recipeapi.repository.AuthorRepository;
+import com.rgs.recipeapi.repository.IngredientRepository;
+import com.rgs.recipeapi.repository.RecipeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class StatsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private IngredientRepository ingredientRepository;
+
+    @Autowired
+    private CatalogueSnapshotService snapshotService;
+
+    @BeforeEach
+    void setUp() {
+        ingredientRepository.deleteAll();
+        recipeRepository.deleteAll();
+        authorRepository.deleteAll();
+
+        Author acton = saveAuthor("Eliza Acton");
+        Author escoffier = saveAuthor("Escoffier");
+
+        Recipe pudding = saveRecipe("Christmas Pudding", acton);
+        Recipe melba = saveRecipe("Peach Melba", escoffier);
+        Recipe souffle = saveRecipe("Souffle", escoffier);
+
+        saveIngredient("sugar", "cup", pudding);
+        saveIngredient("sugar", "cup", melba);
+        saveIngredient("eggs", "large", souffle);
+        saveIngredient("sugar", "tbsp", souffle);
+
+        snapshotService.rebuild();
+    }
+
+    @Test
+    void shouldSummariseSnapshot() throws Exception {
+        mockMvc.perform(get("/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recipes").value(3))
+                .andExpect(jsonPath("$.ingredients").value(4))
+                .andExpect(jsonPath("$.authors").value(2))
+                .andExpect(jsonPath("$.distinctIngredients").value(2));
+    }
+
+    @Test
+    void shouldCountRecipesPerAuthor() throws Exception {
+        mockMvc.perform(get("/stats/recipes-per-author"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Escoffier"))
+                .andExpect(jsonPath("$[0].recipes").value(2))
+                .andExpect(jsonPath("$[1].name").value("Eliza Acton"))
+                .andExpect(jsonPath("$[1].recipes").value(1));
+    }
+
+    @Test
+    void shouldRankTopIngredients() throws Exception {
+        mockMvc.perform(get("/stats/top-ingredients").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].key").value("sugar"))
+                .andExpect(jsonPath("$[0].count").value(3));
+    }
+
+    @Test
+    void shouldPickUpNewRowsOnRefresh() throws Exception {
+        Recipe recipe = recipeRepository.findAll().getFirst();
+        saveIngredient("eggs", "large", recipe);
+
+        snapshotService.refresh();
+
+        mockMvc.perform(get("/stats/units"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].key").value("cup"))
+                .andExpect(jsonPath("$[0].count").value(2))
+                .andExpect(jsonPath("$[1].key").value("large"))
+                .andExpect(jsonPath("$[1].count").value(2));
+    }
+
+    @Test
+    void shouldCountCoalescedReadLoads() throws Exception {
+        Recipe recipe = recipeRepository.findAll().getFirst();
+        mockMvc.perform(get("/recipes/" + recipe.getId()))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/recipes/" + recipe.getId() + "/ingredients"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/stats/coalescing"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].read").value("recipe"))
+                .andExpect(jsonPath("$[0].loads").isNumber())
+                .andExpect(jsonPath("$[1].read").value("ingredients"))
+                .andExpect(jsonPath("$[1].coalesced").isNumber());
+    }
+
+    private Author saveAuthor(String name) {
+        Author author = new Author();
+        author.setName(name);
+        return authorRepository.save(author);
+    }
+
+    private Recipe saveRecipe(String title, Author author) {
+        Recipe recipe = new Recipe();
+        recipe.setTitle(title);
+        recipe.setAuthor(author);
+        return recipeRepository.save(recipe);
+    }
+
+    private void saveIngredient(String name, String unit, Recipe recipe) {
+        Ingredient ingredient = new Ingredient();
+        ingredient.setName(name);
+        ingredient.setUnit(unit);
+        ingredient.setQuantity(1.0f);
+        ingredient.setRecipe(recipe);
+        ingredientRepository.save(ingredient);
+    }
+}
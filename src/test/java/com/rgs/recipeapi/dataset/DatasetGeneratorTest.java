@@ -0,0 +1,78 @@
+package com.rgs.recipeapi.dataset;
+
+import com.rgs.recipeapi.analytics.AuthorStatsService;
+import com.rgs.recipeapi.entity.Author;
+import com.rgs.recipeapi.repository.AuthorRepository;
+import com.rgs.recipeapi.repository.IngredientRepository;
+import com.rgs.recipeapi.repository.RecipeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class DatasetGeneratorTest {
+
+    @Autowired
+    private DatasetGenerator datasetGenerator;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private IngredientRepository ingredientRepository;
+
+    @Autowired
+    private AuthorStatsService authorStatsService;
+
+    @BeforeEach
+    void setUp() {
+        ingredientRepository.deleteAll();
+        recipeRepository.deleteAll();
+        authorRepository.deleteAll();
+    }
+
+    @Test
+    void shouldInsertDatasetAndKeepIdentityUsable() {
+        SyntheticDataset dataset = new SyntheticDataset(3, 10);
+
+        datasetGenerator.insert(dataset, 250);
+
+        assertThat(authorRepository.count()).isEqualTo(10);
+        assertThat(recipeRepository.count()).isEqualTo(250);
+        long ingredients = 0;
+        for (int i = 0; i < 250; i++) {
+            ingredients += dataset.recipe(i).getIngredients().size();
+        }
+        assertThat(ingredientRepository.count()).isEqualTo(ingredients);
+
+        Author top = authorRepository.findAll().stream()
+                .filter(author -> author.getName().equals(dataset.authorName(0)))
+                .findFirst().orElseThrow();
+        assertThat(authorStatsService.findByAuthorId(top.getId()).orElseThrow().getRecipeCount())
+                .isEqualTo(recipeRepository.findAll().stream()
+                        .filter(recipe -> recipe.getAuthor().getId().equals(top.getId())).count());
+
+        Author added = new Author();
+        added.setName("After Load");
+        assertThat(authorRepository.save(added).getId()).isGreaterThan(top.getId());
+    }
+
+    @Test
+    void shouldWriteNdjson(@TempDir Path directory) throws Exception {
+        datasetGenerator.write(new SyntheticDataset(3, 4), 20, directory);
+
+        assertThat(Files.readAllLines(directory.resolve("authors.ndjson"))).hasSize(4);
+        assertThat(Files.readAllLines(directory.resolve("recipes.ndjson"))).hasSize(20)
+                .allSatisfy(line -> assertThat(line).contains("\"title\"").contains("\"ingredients\""));
+    }
+}
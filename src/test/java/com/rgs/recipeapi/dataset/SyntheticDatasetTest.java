@@ -0,0 +1,60 @@
+package com.rgs.recipeapi.dataset;
+
+import com.rgs.recipeapi.dto.RecipeData;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SyntheticDatasetTest {
+
+    @Test
+    void shouldGenerateSameRecipeForSameSeedAndIndex() {
+        RecipeData.RecipeItemData first = new SyntheticDataset(7, 100).recipe(12345);
+        RecipeData.RecipeItemData second = new SyntheticDataset(7, 100).recipe(12345);
+
+        assertThat(second.getTitle()).isEqualTo(first.getTitle());
+        assertThat(second.getInstructions()).isEqualTo(first.getInstructions());
+        assertThat(second.getAuthor()).isEqualTo(first.getAuthor());
+        assertThat(second.getIngredients()).extracting(RecipeData.IngredientData::getName)
+                .containsExactlyElementsOf(first.getIngredients().stream().map(RecipeData.IngredientData::getName).toList());
+        assertThat(new SyntheticDataset(8, 100).recipe(12345).getInstructions()).isNotEqualTo(first.getInstructions());
+    }
+
+    @Test
+    void shouldSkewIngredientsAndAuthors() {
+        SyntheticDataset dataset = new SyntheticDataset(1, 1000);
+        Map<String, Integer> ingredientUses = new HashMap<>();
+        Map<String, Integer> authorRecipes = new HashMap<>();
+        Set<Integer> instructionLengths = new HashSet<>();
+        for (int i = 0; i < 2000; i++) {
+            RecipeData.RecipeItemData recipe = dataset.recipe(i);
+            assertThat(recipe.getAuthor()).isEqualTo(dataset.authorName(dataset.authorOf(i)));
+            assertThat(recipe.getDescription().length()).isLessThanOrEqualTo(1000);
+            assertThat(recipe.getIngredients()).hasSizeGreaterThanOrEqualTo(2);
+            recipe.getIngredients().forEach(ingredient -> ingredientUses.merge(ingredient.getName(), 1, Integer::sum));
+            authorRecipes.merge(recipe.getAuthor(), 1, Integer::sum);
+            instructionLengths.add(recipe.getInstructions().length());
+        }
+
+        int topIngredient = ingredientUses.values().stream().max(Integer::compare).orElseThrow();
+        int topAuthor = authorRecipes.values().stream().max(Integer::compare).orElseThrow();
+        assertThat(topIngredient).isGreaterThan(20 * 2000 * 8 / dataset.vocabularySize());
+        assertThat(topAuthor).isGreaterThan(20 * 2000 / 1000);
+        assertThat(instructionLengths).hasSizeGreaterThan(100);
+    }
+
+    @Test
+    void shouldKeepAuthorNamesUnique() {
+        SyntheticDataset dataset = new SyntheticDataset(1, 5000);
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < dataset.authorCount(); i++) {
+            names.add(dataset.authorName(i));
+        }
+        assertThat(names).hasSize(5000);
+    }
+}
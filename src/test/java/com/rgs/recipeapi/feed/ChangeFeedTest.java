@@ -0,0 +1,45 @@
+package com.rgs.recipeapi.feed;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+
+class ChangeFeedTest {
+
+    @Test
+    void shouldReturnEventsAfterSequence() {
+        ChangeFeed feed = new ChangeFeed(4, 0);
+        feed.append(EntityChange.created("recipe", 1L));
+        feed.append(EntityChange.updated("recipe", 1L));
+        feed.append(EntityChange.deleted("recipe", 1L));
+
+        assertThat(feed.eventsAfter(1))
+                .extracting(ChangeEvent::seq, ChangeEvent::action)
+                .containsExactly(
+                        tuple(2L, EntityChange.Action.UPDATED),
+                        tuple(3L, EntityChange.Action.DELETED));
+        assertThat(feed.eventsAfter(3)).isEmpty();
+    }
+
+    @Test
+    void shouldReportGapOnceEventsAreEvicted() {
+        ChangeFeed feed = new ChangeFeed(2, 0);
+        for (long id = 1; id <= 5; id++) {
+            feed.append(EntityChange.created("author", id));
+        }
+
+        assertThat(feed.lastSeq()).isEqualTo(5);
+        assertThat(feed.eventsAfter(3)).extracting(ChangeEvent::id).containsExactly(4L, 5L);
+        assertThat(feed.eventsAfter(2)).isNull();
+    }
+
+    @Test
+    void shouldReportGapForSequenceAheadOfTheFeed() {
+        ChangeFeed feed = new ChangeFeed(4, 0);
+        feed.append(EntityChange.created("recipe", 1L));
+
+        assertThat(feed.eventsAfter(1)).isEmpty();
+        assertThat(feed.eventsAfter(2)).isNull();
+    }
+}
@@ -5,6 +5,7 @@ import com.rgs.recipeapi.entity.Recipe;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -17,6 +18,9 @@ class RecipeRepositoryTest {
     @Autowired
     private AuthorRepository authorRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     void shouldSaveRecipeWithAuthor() {
         Author author = new Author();
@@ -35,4 +39,22 @@ class RecipeRepositoryTest {
         assertThat(saved.getTitle()).isEqualTo("Peach Melba");
         assertThat(saved.getAuthor().getName()).isEqualTo("Escoffier");
     }
+
+    @Test
+    void shouldPlanEveryListingFilterOnAnIndex() {
+        assertThat(plan("SELECT id FROM recipe WHERE author_id = 1 ORDER BY title, id"))
+                .contains("IDX_RECIPE_AUTHOR_TITLE");
+        assertThat(plan("SELECT id FROM recipe WHERE author_id = 1 ORDER BY ingredient_count, id"))
+                .contains("IDX_RECIPE_AUTHOR_INGREDIENT_COUNT");
+        assertThat(plan("SELECT id FROM recipe WHERE title LIKE 'Apple%' ESCAPE '\\' ORDER BY title, id"))
+                .contains("IDX_RECIPE_TITLE");
+        assertThat(plan("SELECT id FROM recipe WHERE ingredient_count BETWEEN 2 AND 5 ORDER BY ingredient_count, id"))
+                .contains("IDX_RECIPE_INGREDIENT_COUNT");
+        assertThat(plan("SELECT id FROM recipe WHERE id IN (SELECT recipe_id FROM ingredient WHERE unit = 'g')"))
+                .contains("IDX_INGREDIENT_UNIT_RECIPE_ID");
+    }
+
+    private String plan(String sql) {
+        return entityManager.getEntityManager().createNativeQuery("EXPLAIN " + sql).getSingleResult().toString();
+    }
 }
@@ -0,0 +1,113 @@
+package com.rgs.recipeapi.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    @Test
+    void shouldShareOneLoadAcrossConcurrentCallers() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> leader = executor.submit(() -> flight.load(1L, () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "pavlova";
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            List<Future<String>> followers = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                followers.add(executor.submit(() -> flight.load(1L, () -> {
+                    calls.incrementAndGet();
+                    return "other";
+                })));
+            }
+            while (flight.coalesced() < 50) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertThat(leader.get()).isEqualTo("pavlova");
+            for (Future<String> follower : followers) {
+                assertThat(follower.get()).isEqualTo("pavlova");
+            }
+        }
+        assertThat(calls).hasValue(1);
+        assertThat(flight.loads()).isEqualTo(1);
+        assertThat(flight.coalesced()).isEqualTo(50);
+
+        assertThat(flight.load(1L, () -> "fresh")).isEqualTo("fresh");
+    }
+
+    @Test
+    void shouldPropagateLoaderFailureToFollowers() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> flight.load(1L, () -> {
+                started.countDown();
+                await(release);
+                throw new IllegalStateException("database down");
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<String> follower = executor.submit(() -> flight.load(1L, () -> "unused"));
+            while (flight.coalesced() < 1) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertThatThrownBy(follower::get).hasCauseInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    void shouldStartFreshLoadAfterForget() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> stale = executor.submit(() -> flight.load(1L, () -> {
+                started.countDown();
+                await(release);
+                return "before edit";
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            flight.forget(1L);
+            assertThat(flight.load(1L, () -> "after edit")).isEqualTo("after edit");
+
+            release.countDown();
+            assertThat(stale.get()).isEqualTo("before edit");
+        }
+        assertThat(flight.loads()).isEqualTo(2);
+        assertThat(flight.coalesced()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
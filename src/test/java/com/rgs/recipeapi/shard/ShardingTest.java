@@ -0,0 +1,297 @@
+package com.rgs.recipeapi.shard;
+
+import com.rgs.recipeapi.dataset.DatasetGenerator;
+import com.rgs.recipeapi.dataset.SyntheticDataset;
+import com.rgs.recipeapi.entity.Author;
+import com.rgs.recipeapi.entity.Ingredient;
+import com.rgs.recipeapi.entity.Recipe;
+import com.rgs.recipeapi.repository.AuthorMoveRepository;
+import com.rgs.recipeapi.repository.ShardAssignmentRepository;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "recipe.shards.urls=jdbc:h2:mem:shard0,jdbc:h2:mem:shard1")
+@AutoConfigureMockMvc
+class ShardingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardTemplate shardTemplate;
+
+    @Autowired
+    private ShardAssignmentRepository assignmentRepository;
+
+    @Autowired
+    private AuthorMoveRepository moveRepository;
+
+    @Autowired
+    private DatasetGenerator datasetGenerator;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void shouldSpreadAuthorsAndKeepRecipesWithTheirAuthor() throws Exception {
+        Author first = createAuthor("Hannah Glasse");
+        Author second = createAuthor("Isabella Beeton");
+        assertThat(shardRouter.authorShard(first.getId())).isNotEqualTo(shardRouter.authorShard(second.getId()));
+
+        long firstRecipe = createRecipe(first, "Syllabub");
+        long secondRecipe = createRecipe(second, "Mock Turtle Soup");
+        assertThat(shardRouter.recipeShard(firstRecipe)).isEqualTo(shardRouter.authorShard(first.getId()));
+        assertThat(shardRouter.recipeShard(secondRecipe)).isEqualTo(shardRouter.authorShard(second.getId()));
+
+        mockMvc.perform(get("/recipes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.id == " + firstRecipe + ")]").exists())
+                .andExpect(jsonPath("$[?(@.id == " + secondRecipe + ")]").exists());
+
+        mockMvc.perform(get("/recipes/" + secondRecipe))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.author.name").value("Isabella Beeton"));
+    }
+
+    @Test
+    void shouldFindAuthorAndRecipesAfterMovingShards() throws Exception {
+        Author saved = createAuthor("Fannie Farmer");
+        long author = saved.getId();
+        long recipe = createRecipe(saved, "Parker House Rolls");
+        Ingredient ingredient = new Ingredient();
+        ingredient.setName("flour");
+        ingredient.setQuantity(500f);
+        ingredient.setUnit("g");
+        mockMvc.perform(post("/recipes/" + recipe + "/ingredients")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(ingredient)))
+                .andExpect(status().isCreated());
+
+        int source = shardRouter.authorShard(author);
+        int target = 1 - source;
+        mockMvc.perform(post("/shards/authors/" + author).param("shard", String.valueOf(target)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.from").value(source))
+                .andExpect(jsonPath("$.to").value(target))
+                .andExpect(jsonPath("$.recipes").value(1))
+                .andExpect(jsonPath("$.ingredients").value(1));
+
+        assertThat(shardRouter.authorShard(author)).isEqualTo(target);
+        assertThat(shardRouter.recipeShard(recipe)).isEqualTo(target);
+        mockMvc.perform(get("/authors/" + author))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Fannie Farmer"));
+        mockMvc.perform(get("/recipes/" + recipe + "/ingredients"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("flour"));
+        mockMvc.perform(get("/authors/" + author + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recipeCount").value(1));
+    }
+
+    @Test
+    void shouldRouteMovesMadeOnAnotherNodeAfterRefreshing() throws Exception {
+        ShardRouter otherNode = new ShardRouter(shardTemplate, assignmentRepository, 0);
+        otherNode.load();
+        Author saved = createAuthor("Amelia Simmons");
+        long author = saved.getId();
+        long recipe = createRecipe(saved, "Pompkin Pie");
+        int target = 1 - shardRouter.authorShard(author);
+        assertThat(otherNode.recipeShard(recipe)).isNotEqualTo(target);
+
+        mockMvc.perform(post("/shards/authors/" + author).param("shard", String.valueOf(target)))
+                .andExpect(status().isOk());
+
+        assertThat(otherNode.authorShard(author)).isEqualTo(target);
+        assertThat(otherNode.recipesByShard(List.of(recipe))).containsOnlyKeys(target);
+    }
+
+    @Test
+    void shouldRejectReassigningRecipeToAuthorOnAnotherShard() throws Exception {
+        Author first = createAuthor("Eliza Acton");
+        Author second = createAuthor("Mary Randolph");
+        assertThat(shardRouter.authorShard(first.getId())).isNotEqualTo(shardRouter.authorShard(second.getId()));
+        long recipe = createRecipe(first, "Christmas Pudding");
+
+        Recipe replacement = new Recipe();
+        replacement.setTitle("Christmas Pudding");
+        replacement.setAuthor(second);
+        mockMvc.perform(put("/recipes/" + recipe)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(replacement)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/recipes/" + recipe)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"authorId\": " + second.getId() + ", \"version\": 0}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/recipes/" + recipe))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.author.name").value("Eliza Acton"));
+    }
+
+    @Test
+    void shouldUndoMoveThatFailsAfterCopying() throws Exception {
+        Author saved = createAuthor("Hannah Woolley");
+        long author = saved.getId();
+        long recipe = createRecipe(saved, "Quaking Pudding");
+        int source = shardRouter.authorShard(author);
+        int target = 1 - source;
+        ShardRouter failingRouter = new ShardRouter(shardTemplate, assignmentRepository, 1000) {
+            @Override
+            void reassign(Long authorId, Collection<Long> recipeIds, int shard) {
+                super.reassign(authorId, recipeIds, shard);
+                throw new IllegalStateException("Shard 0 went away");
+            }
+        };
+        ShardRebalancer rebalancer = new ShardRebalancer(shardTemplate, failingRouter, moveRepository, dataSource);
+
+        assertThatThrownBy(() -> rebalancer.moveAuthor(author, target)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(failingRouter.authorShard(author)).isEqualTo(source);
+        assertThat(shardTemplate.onShard(0, () -> moveRepository.count())).isZero();
+        assertThat(shardTemplate.onShard(target, () -> jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM recipe WHERE author_id = ?", Long.class, author))).isZero();
+        mockMvc.perform(get("/recipes/" + recipe))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.author.name").value("Hannah Woolley"));
+
+        mockMvc.perform(post("/shards/authors/" + author).param("shard", String.valueOf(target)))
+                .andExpect(status().isOk());
+        assertThat(shardRouter.recipeShard(recipe)).isEqualTo(target);
+        mockMvc.perform(get("/recipes/" + recipe))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldGenerateDatasetAcrossShardsWithShardRangeIds() throws Exception {
+        SyntheticDataset dataset = new SyntheticDataset(11, 4);
+
+        datasetGenerator.insert(dataset, 40);
+
+        long recipes = 0;
+        for (int i = 0; i < dataset.authorCount(); i++) {
+            int shard = i % 2;
+            String name = dataset.authorName(i);
+            Long author = shardTemplate.onShard(shard, () -> jdbcTemplate.queryForObject(
+                    "SELECT id FROM author WHERE name = ?", Long.class, name));
+            assertThat(shardRouter.authorShard(author)).isEqualTo(shard);
+            List<Long> ids = shardTemplate.onShard(shard, () -> jdbcTemplate.queryForList(
+                    "SELECT id FROM recipe WHERE author_id = ?", Long.class, author));
+            assertThat(ids).allSatisfy(id -> assertThat(shardRouter.recipeShard(id)).isEqualTo(shard));
+            recipes += ids.size();
+            mockMvc.perform(get("/authors/" + author + "/stats"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.recipeCount").value(ids.size()));
+        }
+        assertThat(recipes).isEqualTo(40);
+
+        Author first = createAuthor("After Generating");
+        Author second = createAuthor("After Generating Too");
+        createRecipe(first, "Anadama Bread");
+        createRecipe(second, "Election Cake");
+    }
+
+    @Test
+    void shouldListProjectedRecipesInIdOrderAcrossShards() throws Exception {
+        Author stays = createAuthorOnShard("Lydia Child", 1);
+        Author moves = createAuthorOnShard("Catharine Beecher", 1);
+        long earlier = createRecipe(stays, "Hasty Pudding");
+        long later = createRecipe(moves, "Apple Slump");
+        mockMvc.perform(post("/shards/authors/" + moves.getId()).param("shard", "0"))
+                .andExpect(status().isOk());
+        assertThat(shardRouter.recipeShard(later)).isZero();
+        assertThat(shardRouter.recipeShard(earlier)).isEqualTo(1);
+
+        JsonNode rows = objectMapper.readTree(mockMvc.perform(get("/recipes").param("fields", "id,title"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        List<Long> ids = new ArrayList<>();
+        List<JsonNode> titles = new ArrayList<>();
+        for (JsonNode row : rows) {
+            ids.add(row.get("id").asLong());
+            titles.add(row.get("title"));
+        }
+        assertThat(ids).isSorted().contains(earlier, later);
+
+        JsonNode titleRows = objectMapper.readTree(mockMvc.perform(get("/recipes").param("fields", "title"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        List<JsonNode> projected = new ArrayList<>();
+        for (JsonNode row : titleRows) {
+            assertThat(row.has("id")).isFalse();
+            projected.add(row.get("title"));
+        }
+        assertThat(projected).isEqualTo(titles);
+    }
+
+    @Test
+    void shouldRejectUnknownShardsAndAuthors() throws Exception {
+        mockMvc.perform(get("/shards"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+        mockMvc.perform(post("/shards/authors/1").param("shard", "2"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/shards/authors/999999").param("shard", "1"))
+                .andExpect(status().isNotFound());
+    }
+
+    private Author createAuthor(String name) throws Exception {
+        Author author = new Author();
+        author.setName(name);
+        return objectMapper.readValue(mockMvc.perform(post("/authors")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(author)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString(), Author.class);
+    }
+
+    private Author createAuthorOnShard(String name, int shard) throws Exception {
+        Author author = createAuthor(name);
+        while (shardRouter.authorShard(author.getId()) != shard) {
+            author = createAuthor(name);
+        }
+        return author;
+    }
+
+    private long createRecipe(Author author, String title) throws Exception {
+        Recipe recipe = new Recipe();
+        recipe.setTitle(title);
+        recipe.setAuthor(author);
+        return objectMapper.readValue(mockMvc.perform(post("/recipes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(recipe)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString(), Recipe.class).getId();
+    }
+}
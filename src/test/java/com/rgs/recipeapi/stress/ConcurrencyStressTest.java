@@ -0,0 +1,369 @@
+package com.rgs.recipeapi.stress;
+
+import com.rgs.recipeapi.analytics.AuthorStatsService;
+import com.rgs.recipeapi.entity.Author;
+import com.rgs.recipeapi.entity.Ingredient;
+import com.rgs.recipeapi.entity.Recipe;
+import com.rgs.recipeapi.repository.AuthorRepository;
+import com.rgs.recipeapi.repository.IngredientRepository;
+import com.rgs.recipeapi.repository.RecipeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import tools.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Hammers the read-modify-write endpoints from many virtual threads against the same rows over real HTTP, and checks
+ * that no update is lost and nothing deadlocks. Each scenario logs its contention metrics, including concurrent
+ * against sequential throughput; that ratio depends on the machine, so it is only asserted when
+ * {@code -Dstress.min-throughput-ratio} is given. Sizes can be raised for a longer local run, e.g.
+ * {@code -Dstress.threads=200 -Dstress.iterations=50 -Dstress.deadline-seconds=600}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "recipe.warmup.requests=0")
+class ConcurrencyStressTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ConcurrencyStressTest.class);
+
+    private static final int THREADS = Integer.getInteger("stress.threads", 16);
+    private static final int ITERATIONS = Integer.getInteger("stress.iterations", 10);
+    private static final Duration DEADLINE = Duration.ofSeconds(Long.getLong("stress.deadline-seconds", 60));
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final String MIN_THROUGHPUT_RATIO = System.getProperty("stress.min-throughput-ratio");
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private IngredientRepository ingredientRepository;
+
+    @Autowired
+    private AuthorStatsService authorStatsService;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private Author author;
+    private Recipe recipe;
+
+    @BeforeEach
+    void setUp() {
+        author = new Author();
+        author.setName("Stress Author");
+        author = authorRepository.save(author);
+
+        recipe = new Recipe();
+        recipe.setTitle("Contended");
+        recipe.setDescription("0");
+        recipe.setAuthor(author);
+        recipe = recipeRepository.save(recipe);
+    }
+
+    @Test
+    void shouldNotLoseConcurrentIngredientUpdates() throws Exception {
+        Ingredient ingredient = new Ingredient();
+        ingredient.setName("salt");
+        ingredient.setQuantity(0f);
+        ingredient.setUnit("g");
+        ingredient.setRecipe(recipe);
+        Long ingredientId = ingredientRepository.save(ingredient).getId();
+        String ingredients = "/recipes/" + recipe.getId() + "/ingredients";
+
+        Metrics metrics = hammer("updateIngredient", THREADS, ITERATIONS, run -> {
+            while (true) {
+                Ingredient current = List.of(objectMapper.readValue(
+                                run.send(get(ingredients)).body(), Ingredient[].class)).stream()
+                        .filter(candidate -> candidate.getId().equals(ingredientId))
+                        .findFirst().orElseThrow();
+                current.setQuantity(current.getQuantity() + 1);
+                if (run.send(put(ingredients + "/" + ingredientId, current)).statusCode() == 200) {
+                    return;
+                }
+            }
+        });
+
+        metrics.assertNoErrors();
+        assertThat(ingredientRepository.findById(ingredientId).orElseThrow().getQuantity())
+                .isEqualTo((float) THREADS * ITERATIONS);
+    }
+
+    @Test
+    void shouldNotLoseConcurrentRecipeUpdates() throws Exception {
+        String path = "/recipes/" + recipe.getId();
+
+        Metrics metrics = hammer("updateRecipe", THREADS, ITERATIONS, run -> {
+            while (true) {
+                Recipe current = objectMapper.readValue(run.send(get(path)).body(), Recipe.class);
+                current.setDescription(String.valueOf(Integer.parseInt(current.getDescription()) + 1));
+                if (run.send(put(path, current)).statusCode() == 200) {
+                    return;
+                }
+            }
+        });
+
+        metrics.assertNoErrors();
+        assertThat(recipeRepository.findById(recipe.getId()).orElseThrow().getDescription())
+                .isEqualTo(String.valueOf(THREADS * ITERATIONS));
+    }
+
+    // Without a version in the body the last writer wins, but every accepted write must still bump the version once
+    @Test
+    void shouldAcceptOrRejectBlindRecipeUpdatesWithoutLosingAny() throws Exception {
+        String path = "/recipes/" + recipe.getId();
+        long startVersion = recipe.getVersion();
+        AtomicLong sequence = new AtomicLong();
+
+        Metrics metrics = hammer("updateRecipe (no version)", THREADS, ITERATIONS, run -> {
+            Recipe update = new Recipe();
+            update.setTitle("Write " + sequence.incrementAndGet());
+            update.setDescription("blind");
+            update.setAuthor(author);
+            run.send(put(path, update));
+        });
+
+        metrics.assertNoErrors();
+        assertThat(recipeRepository.findById(recipe.getId()).orElseThrow().getVersion())
+                .isEqualTo(startVersion + metrics.ok.get());
+    }
+
+    @Test
+    void shouldCreateIngredientsConcurrentlyWithoutCollapse() throws Exception {
+        String path = "/recipes/" + recipe.getId() + "/ingredients";
+        Operation create = run -> {
+            Ingredient ingredient = new Ingredient();
+            ingredient.setName("pepper");
+            ingredient.setQuantity(1f);
+            ingredient.setUnit("g");
+            assertThat(run.send(post(path, ingredient)).statusCode()).isEqualTo(201);
+        };
+
+        Metrics sequential = hammer("createIngredient (1 thread)", 1, THREADS * ITERATIONS, create);
+        Metrics concurrent = hammer("createIngredient", THREADS, ITERATIONS, create);
+
+        sequential.assertNoErrors();
+        concurrent.assertNoErrors();
+        long expected = 2L * THREADS * ITERATIONS;
+        assertThat(ingredientRepository.countByRecipeId(recipe.getId())).isEqualTo(expected);
+        assertThat(recipeRepository.findById(recipe.getId()).orElseThrow().getIngredientCount()).isEqualTo(expected);
+        String stats = client.send(get("/authors/" + author.getId() + "/stats"),
+                HttpResponse.BodyHandlers.ofString()).body();
+        assertThat(objectMapper.readTree(stats).get("ingredientCount").asLong()).isEqualTo(expected);
+        double ratio = concurrent.throughput() / sequential.throughput();
+        log.info("createIngredient concurrent/sequential throughput={}", String.format("%.2f", ratio));
+        if (MIN_THROUGHPUT_RATIO != null) {
+            assertThat(ratio)
+                    .as("concurrent throughput against %.0f/s sequential", sequential.throughput())
+                    .isGreaterThanOrEqualTo(Double.parseDouble(MIN_THROUGHPUT_RATIO));
+        }
+    }
+
+    // Creates and deletes lock the same recipe and author_stats rows, so they must take them in the same order
+    @Test
+    void shouldCreateAndDeleteIngredientsConcurrentlyWithoutDeadlock() throws Exception {
+        String path = "/recipes/" + recipe.getId() + "/ingredients";
+
+        Metrics metrics = hammer("createAndDeleteIngredient", THREADS, ITERATIONS, run -> {
+            Ingredient ingredient = new Ingredient();
+            ingredient.setName("thyme");
+            ingredient.setQuantity(1f);
+            ingredient.setUnit("g");
+            HttpResponse<String> created = run.send(post(path, ingredient));
+            assertThat(created.statusCode()).isEqualTo(201);
+            Long id = objectMapper.readValue(created.body(), Ingredient.class).getId();
+            assertThat(run.send(delete(path + "/" + id)).statusCode()).isEqualTo(204);
+        });
+
+        metrics.assertNoErrors();
+        assertThat(metrics.conflicts.get()).as("conflicts").isZero();
+        assertThat(ingredientRepository.countByRecipeId(recipe.getId())).isZero();
+        assertThat(recipeRepository.findById(recipe.getId()).orElseThrow().getIngredientCount()).isZero();
+        String stats = client.send(get("/authors/" + author.getId() + "/stats"),
+                HttpResponse.BodyHandlers.ofString()).body();
+        assertThat(objectMapper.readTree(stats).get("ingredientCount").asLong()).isZero();
+    }
+
+    // An increment committed while the recount runs must survive it. Reconciling stops while writes are still in
+    // flight, so a lost increment is not repaired by a final recount
+    @Test
+    void shouldKeepCountersExactWhenReconcilingDuringWrites() throws Exception {
+        String path = "/recipes/" + recipe.getId() + "/ingredients";
+        long total = (long) THREADS * ITERATIONS;
+        AtomicLong created = new AtomicLong();
+        AtomicLong reconciles = new AtomicLong();
+        // Paced, as the lock waits are not fair and a reconcile in a tight loop would starve the writers
+        Thread reconciler = Thread.ofVirtual().start(() -> {
+            while (created.get() < total * 3 / 4) {
+                authorStatsService.reconcile();
+                reconciles.incrementAndGet();
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+            }
+        });
+
+        Metrics metrics = hammer("createIngredient (reconciling)", THREADS, ITERATIONS, run -> {
+            Ingredient ingredient = new Ingredient();
+            ingredient.setName("mace");
+            ingredient.setQuantity(1f);
+            ingredient.setUnit("g");
+            assertThat(run.send(post(path, ingredient)).statusCode()).isEqualTo(201);
+            created.incrementAndGet();
+        });
+        reconciler.join();
+
+        metrics.assertNoErrors();
+        assertThat(reconciles.get()).isPositive();
+        String stats = client.send(get("/authors/" + author.getId() + "/stats"),
+                HttpResponse.BodyHandlers.ofString()).body();
+        assertThat(objectMapper.readTree(stats).get("ingredientCount").asLong()).isEqualTo(total);
+    }
+
+    private Metrics hammer(String scenario, int threads, int iterations, Operation operation) throws Exception {
+        Metrics metrics = new Metrics();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>(threads);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        for (int t = 0; t < threads; t++) {
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < iterations; i++) {
+                    operation.run(metrics);
+                }
+                return null;
+            }));
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        boolean finished = executor.awaitTermination(DEADLINE.toMillis(), TimeUnit.MILLISECONDS);
+        metrics.elapsedNanos = System.nanoTime() - began;
+        if (!finished) {
+            executor.shutdownNow();
+            fail("%s did not finish within %s, possible deadlock: %s", scenario, DEADLINE, metrics.report(scenario));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        log.info(metrics.report(scenario));
+        return metrics;
+    }
+
+    private HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest put(String path, Object body) {
+        return request(path).header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body))).build();
+    }
+
+    private HttpRequest post(String path, Object body) {
+        return request(path).header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body))).build();
+    }
+
+    private HttpRequest delete(String path) {
+        return request(path).DELETE().build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).timeout(REQUEST_TIMEOUT);
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        void run(Metrics metrics) throws Exception;
+    }
+
+    /**
+     * Outcome counts and latencies of every request a scenario sends; 409 responses are the contention signal.
+     */
+    private final class Metrics {
+
+        private final AtomicLong ok = new AtomicLong();
+        private final AtomicLong conflicts = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong timeouts = new AtomicLong();
+        private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private long elapsedNanos;
+
+        HttpResponse<String> send(HttpRequest request) throws Exception {
+            long start = System.nanoTime();
+            HttpResponse<String> response;
+            try {
+                response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            } catch (HttpTimeoutException e) {
+                timeouts.incrementAndGet();
+                throw e;
+            }
+            latencies.add(System.nanoTime() - start);
+            int status = response.statusCode();
+            if (status == 409) {
+                conflicts.incrementAndGet();
+            } else if (status >= 200 && status < 300) {
+                if (!"GET".equals(request.method())) {
+                    ok.incrementAndGet();
+                }
+            } else {
+                errors.incrementAndGet();
+            }
+            return response;
+        }
+
+        double throughput() {
+            return latencies.size() / (elapsedNanos / 1e9);
+        }
+
+        void assertNoErrors() {
+            assertThat(errors.get()).as("non-2xx, non-409 responses").isZero();
+            assertThat(timeouts.get()).as("timed-out requests").isZero();
+        }
+
+        String report(String scenario) {
+            List<Long> sorted = new ArrayList<>(latencies);
+            sorted.sort(null);
+            int writes = (int) (ok.get() + conflicts.get());
+            return String.format("%s: %d requests in %d ms (%.0f/s), %d writes accepted, %d conflicts (%.1f%% of writes), "
+                            + "%d errors, %d timeouts, p50 %.2f ms, p99 %.2f ms, max %.2f ms",
+                    scenario, sorted.size(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos), throughput(), ok.get(),
+                    conflicts.get(), writes == 0 ? 0.0 : 100.0 * conflicts.get() / writes, errors.get(),
+                    timeouts.get(), percentile(sorted, 0.5), percentile(sorted, 0.99), percentile(sorted, 1.0));
+        }
+
+        private static double percentile(List<Long> sorted, double quantile) {
+            if (sorted.isEmpty()) {
+                return 0;
+            }
+            int index = Math.min(sorted.size() - 1, (int) Math.ceil(quantile * sorted.size()) - 1);
+            return sorted.get(Math.max(0, index)) / 1e6;
+        }
+    }
+}
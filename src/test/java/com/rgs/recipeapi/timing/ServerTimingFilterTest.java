@@ -0,0 +1,50 @@
+package com.rgs.recipeapi.timing;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ServerTimingFilterTest {
+
+    private static final String TIMING = "db;dur=\\d+\\.\\d{3};desc=\"(\\d+) statements\", flush;dur=\\d+\\.\\d{3}, "
+            + "ser;dur=\\d+\\.\\d{3}, handler;dur=\\d+\\.\\d{3}, total;dur=\\d+\\.\\d{3}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void shouldBreakDownJsonResponses() throws Exception {
+        String timing = mockMvc.perform(get("/authors"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isArray())
+                .andExpect(header().string("Server-Timing", matchesPattern(TIMING)))
+                .andReturn().getResponse().getHeader("Server-Timing");
+
+        assertThat(timing).doesNotContain("desc=\"0 statements\"");
+    }
+
+    @Test
+    void shouldTimeResponsesWithoutBody() throws Exception {
+        mockMvc.perform(get("/recipes/999999"))
+                .andExpect(status().isNotFound())
+                .andExpect(header().string("Server-Timing", matchesPattern(TIMING)));
+    }
+
+    @Test
+    void shouldFormatMillisecondsWithMicrosecondPrecision() {
+        assertThat(RequestTiming.millis(1_234_567)).isEqualTo("1.234");
+        assertThat(RequestTiming.millis(5_000)).isEqualTo("0.005");
+        assertThat(RequestTiming.millis(2_050_000)).isEqualTo("2.050");
+    }
+}
@@ -0,0 +1,37 @@
+package com.rgs.recipeapi.timing;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "recipe.shards.urls=jdbc:h2:mem:timing0,jdbc:h2:mem:timing1")
+@AutoConfigureMockMvc
+class ShardedServerTimingTest {
+
+    private static final Pattern DB = Pattern.compile("db;dur=(\\d+\\.\\d{3});desc=\"(\\d+) statements\"");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void shouldCountStatementsRunOnEveryShard() throws Exception {
+        String timing = mockMvc.perform(get("/recipes"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("Server-Timing");
+
+        Matcher db = DB.matcher(timing);
+        assertThat(db.find()).isTrue();
+        // At least one statement per shard, each taking some time
+        assertThat(Integer.parseInt(db.group(2))).isGreaterThanOrEqualTo(2);
+        assertThat(Double.parseDouble(db.group(1))).isPositive();
+    }
+}
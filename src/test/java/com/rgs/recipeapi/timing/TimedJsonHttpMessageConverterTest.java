@@ -0,0 +1,50 @@
+package com.rgs.recipeapi.timing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimedJsonHttpMessageConverterTest {
+
+    private final TimedJsonHttpMessageConverter converter = new TimedJsonHttpMessageConverter(new JsonMapper(), 64);
+
+    @BeforeEach
+    void startTiming() {
+        RequestTiming.current().start();
+    }
+
+    @AfterEach
+    void stopTiming() {
+        RequestTiming.current().stop();
+    }
+
+    @Test
+    void shouldWriteBodiesBelowTheLimitFromTheBuffer() throws Exception {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+
+        converter.write(Map.of("name", "Pancakes"), MediaType.APPLICATION_JSON, message);
+
+        assertThat(message.getBodyAsString()).isEqualTo("{\"name\":\"Pancakes\"}");
+        assertThat(RequestTiming.current().serializationNanos()).isPositive();
+    }
+
+    @Test
+    void shouldStreamBodiesAboveTheLimit() throws Exception {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        List<String> names = Collections.nCopies(100, "Pancakes");
+
+        converter.write(names, MediaType.APPLICATION_JSON, message);
+
+        assertThat(message.getBodyAsString()).isEqualTo(new JsonMapper().writeValueAsString(names));
+        assertThat(RequestTiming.current().serializationNanos()).isPositive();
+    }
+}
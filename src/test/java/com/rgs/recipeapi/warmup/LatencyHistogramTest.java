@@ -0,0 +1,33 @@
+package com.rgs.recipeapi.warmup;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyHistogramTest {
+
+    @Test
+    void shouldMapEveryValueIntoABucketThatContainsIt() {
+        for (long micros : new long[]{0, 1, 15, 16, 31, 32, 33, 1000, 123_456, 60_000_000, Long.MAX_VALUE / 1000}) {
+            int index = LatencyHistogram.index(micros);
+            assertThat(LatencyHistogram.upperBound(index)).isGreaterThanOrEqualTo(micros);
+            if (index > 0) {
+                assertThat(LatencyHistogram.upperBound(index - 1)).isLessThan(micros);
+            }
+        }
+    }
+
+    @Test
+    void shouldReportPercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int ms = 1; ms <= 1000; ms++) {
+            histogram.record(ms * 1_000_000L);
+        }
+
+        assertThat(histogram.count()).isEqualTo(1000);
+        assertThat(histogram.percentileMillis(0.99)).isCloseTo(990, within(990 * 0.07));
+        assertThat(histogram.percentileMillis(0.5)).isCloseTo(500, within(500 * 0.07));
+        assertThat(new LatencyHistogram().percentileMillis(0.99)).isZero();
+    }
+}
@@ -0,0 +1,48 @@
+package com.rgs.recipeapi.warmup;
+
+import com.rgs.recipeapi.dto.WarmUpStats;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"recipe.warmup.requests=200", "recipe.warmup.concurrency=4"})
+class WarmUpTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private WarmUp warmUp;
+
+    @Test
+    void shouldReplayWorkloadBeforeAcceptingTrafficAndTimeWhatFollows() throws Exception {
+        WarmUpStats before = warmUp.stats();
+        assertThat(before.readiness()).isEqualTo("ACCEPTING_TRAFFIC");
+        assertThat(before.requests()).isEqualTo(200);
+        assertThat(before.failed()).isZero();
+        assertThat(before.firstMinuteComplete()).isFalse();
+
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/stats/warmup")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(200);
+
+        // The filter records after the response has been flushed
+        WarmUpStats after = warmUp.stats();
+        for (int i = 0; i < 100 && after.firstMinuteRequests() == before.firstMinuteRequests(); i++) {
+            Thread.sleep(20);
+            after = warmUp.stats();
+        }
+        assertThat(after.firstMinuteRequests()).isEqualTo(before.firstMinuteRequests() + 1);
+        assertThat(after.firstMinuteP99Millis()).isPositive();
+    }
+}